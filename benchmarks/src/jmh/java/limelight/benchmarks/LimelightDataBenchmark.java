@@ -0,0 +1,134 @@
+package limelight.benchmarks;
+
+import java.util.Optional;
+import limelight.results.RawDetection;
+import limelight.results.RawDetectionBuffer;
+import limelight.results.RawFiducial;
+import limelight.results.RawFiducialBuffer;
+import limelight.structures.LimelightData;
+import limelight.structures.LimelightResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link LimelightData} getters reading a frame from the local NetworkTables instance.
+ * <p>
+ * The "fresh" benchmarks republish the topic they read inside the benchmark body so each call decodes a new frame,
+ * which is what happens when the Limelight publishes faster than the robot loop. A per-invocation setup would cost
+ * more than the sub-microsecond getters it wraps, so the publish is measured instead; subtract the matching "publish"
+ * baseline to get the decode alone. The "unchanged" benchmarks read the same frame repeatedly, which is what happens
+ * when robot code calls a getter several times per loop.
+ */
+public class LimelightDataBenchmark
+{
+
+  /**
+   * NetworkTables frame and the {@link LimelightData} reading it.
+   */
+  @State(Scope.Thread)
+  public static class Frame
+  {
+
+    @Param({"1", "4", "16"})
+    public int tags;
+
+    @Param({"0", "5", "20"})
+    public int detections;
+
+    LimelightFixture fixture;
+    LimelightData    data;
+    LimelightResults results;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+      fixture = new LimelightFixture(tags, detections);
+      data = fixture.limelight.getData();
+      results = new LimelightResults();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public void publishJson(Frame frame)
+  {
+    frame.fixture.publishJson();
+  }
+
+  @Benchmark
+  public void publishRawFiducials(Frame frame)
+  {
+    frame.fixture.publishRawFiducials();
+  }
+
+  @Benchmark
+  public void publishRawDetections(Frame frame)
+  {
+    frame.fixture.publishRawDetections();
+  }
+
+  @Benchmark
+  public Optional<LimelightResults> getResultsFresh(Frame frame)
+  {
+    frame.fixture.publishJson();
+    return frame.data.getResults();
+  }
+
+  @Benchmark
+  public Optional<LimelightResults> getResultsUnchanged(Frame frame)
+  {
+    return frame.data.getResults();
+  }
+
+  @Benchmark
+  public boolean updateResultsFresh(Frame frame)
+  {
+    frame.fixture.publishJson();
+    return frame.data.updateResults(frame.results);
+  }
+
+  @Benchmark
+  public RawFiducial[] getRawFiducialsFresh(Frame frame)
+  {
+    frame.fixture.publishRawFiducials();
+    return frame.data.getRawFiducials();
+  }
+
+  @Benchmark
+  public double getRawFiducialBufferFresh(Frame frame)
+  {
+    frame.fixture.publishRawFiducials();
+    RawFiducialBuffer fiducials = frame.data.getRawFiducialBuffer();
+    double            sum       = 0;
+    for (int i = 0; i < fiducials.size(); i++)
+    {
+      sum += fiducials.ambiguity(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public RawDetection[] getRawDetectionsFresh(Frame frame)
+  {
+    frame.fixture.publishRawDetections();
+    return frame.data.getRawDetections();
+  }
+
+  @Benchmark
+  public int getRawDetectionBufferFresh(Frame frame)
+  {
+    frame.fixture.publishRawDetections();
+    RawDetectionBuffer detections = frame.data.getRawDetectionBuffer();
+    return detections.indexOfLargestArea();
+  }
+}
@@ -0,0 +1,167 @@
+package limelight.benchmarks;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.StringPublisher;
+import limelight.Limelight;
+
+/**
+ * Publishes a Limelight frame on the local NetworkTables instance and constructs a {@link Limelight} reading it.
+ * <p>
+ * Publishers keep duplicates and every payload is published with its own strictly increasing timestamp, so that
+ * republishing the same payload is always seen as a new frame, even when two publishes land in the same
+ * microsecond. This lets a benchmark measure a full decode on every invocation instead of the unchanged-frame
+ * shortcut.
+ */
+final class LimelightFixture implements AutoCloseable
+{
+
+  /**
+   * Publishes "getpipe" so the {@link Limelight} attaches.
+   */
+  private final DoublePublisher      pipeline;
+  /**
+   * Publishes "json".
+   */
+  private final StringPublisher      json;
+  /**
+   * Publishes "rawfiducials".
+   */
+  private final DoubleArrayPublisher rawFiducials;
+  /**
+   * Publishes "rawdetections".
+   */
+  private final DoubleArrayPublisher rawDetections;
+  /**
+   * Publishes "botpose_wpiblue" and "botpose_orb_wpiblue".
+   */
+  private final DoubleArrayPublisher botpose, botposeMegaTag2;
+  /**
+   * Frame payloads.
+   */
+  private final String               jsonPayload;
+  private final double[]             rawFiducialPayload, rawDetectionPayload, botposePayload;
+  /**
+   * Timestamp of the last publish in microseconds, incremented on every publish.
+   */
+  private       long                 fakeMicros;
+  /**
+   * {@link Limelight} under test.
+   */
+  final         Limelight            limelight;
+
+  /**
+   * Publish a frame with the given number of tags and detections and attach a {@link Limelight} to it.
+   *
+   * @param tags       AprilTags in view.
+   * @param detections Neural detector results.
+   */
+  LimelightFixture(int tags, int detections)
+  {
+    NetworkTable table = NetworkTableInstance.getDefault().getTable(Payloads.LIMELIGHT_NAME);
+    PubSubOption keep  = PubSubOption.keepDuplicates(true);
+    pipeline = table.getDoubleTopic("getpipe").publish();
+    json = table.getStringTopic("json").publish(keep);
+    rawFiducials = table.getDoubleArrayTopic("rawfiducials").publish(keep);
+    rawDetections = table.getDoubleArrayTopic("rawdetections").publish(keep);
+    botpose = table.getDoubleArrayTopic("botpose_wpiblue").publish(keep);
+    botposeMegaTag2 = table.getDoubleArrayTopic("botpose_orb_wpiblue").publish(keep);
+    jsonPayload = Payloads.resultsJson(tags, detections);
+    rawFiducialPayload = Payloads.rawFiducials(tags);
+    rawDetectionPayload = Payloads.rawDetections(detections);
+    botposePayload = Payloads.botpose(tags);
+    fakeMicros = NetworkTablesJNI.now();
+
+    pipeline.set(0);
+    publishFrame();
+    limelight = new Limelight(Payloads.LIMELIGHT_NAME);
+    // The fixture publishes no heartbeat; without this the watchdog would keep every getter empty.
+    limelight.getWatchdog().setEnabled(false);
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (!limelight.isAttached())
+    {
+      if (System.nanoTime() > deadline)
+      {
+        throw new IllegalStateException("Benchmark Limelight did not attach");
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Republish every payload so that the next read sees a new frame.
+   */
+  void publishFrame()
+  {
+    publishJson();
+    publishRawFiducials();
+    publishRawDetections();
+    publishBotpose();
+    publishBotposeMegaTag2();
+  }
+
+  /**
+   * Republish "json" so that the next results read sees a new frame.
+   */
+  void publishJson()
+  {
+    json.set(jsonPayload, ++fakeMicros);
+  }
+
+  /**
+   * Republish "rawfiducials" so that the next raw fiducial read sees a new frame.
+   */
+  void publishRawFiducials()
+  {
+    rawFiducials.set(rawFiducialPayload, ++fakeMicros);
+  }
+
+  /**
+   * Republish "rawdetections" so that the next raw detection read sees a new frame.
+   */
+  void publishRawDetections()
+  {
+    rawDetections.set(rawDetectionPayload, ++fakeMicros);
+  }
+
+  /**
+   * Republish "botpose_wpiblue" so that the next MegaTag1 pose read sees a new frame.
+   */
+  void publishBotpose()
+  {
+    botpose.set(botposePayload, ++fakeMicros);
+  }
+
+  /**
+   * Republish "botpose_orb_wpiblue" so that the next MegaTag2 pose read sees a new frame.
+   */
+  void publishBotposeMegaTag2()
+  {
+    botposeMegaTag2.set(botposePayload, ++fakeMicros);
+  }
+
+  /**
+   * Size of the JSON payload in characters.
+   *
+   * @return JSON length.
+   */
+  int jsonLength()
+  {
+    return jsonPayload.length();
+  }
+
+  @Override
+  public void close()
+  {
+    pipeline.close();
+    json.close();
+    rawFiducials.close();
+    rawDetections.close();
+    botpose.close();
+    botposeMegaTag2.close();
+  }
+}
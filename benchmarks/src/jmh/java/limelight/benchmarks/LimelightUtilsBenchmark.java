@@ -0,0 +1,37 @@
+package limelight.benchmarks;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import limelight.structures.LimelightUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link LimelightUtils} pose conversions used by every pose getter.
+ */
+@State(Scope.Thread)
+public class LimelightUtilsBenchmark
+{
+
+  private double[] pose;
+
+  @Setup
+  public void setup()
+  {
+    pose = Payloads.botpose(4);
+  }
+
+  @Benchmark
+  public Pose3d toPose3D()
+  {
+    return LimelightUtils.toPose3D(pose);
+  }
+
+  @Benchmark
+  public Pose2d toPose2D()
+  {
+    return LimelightUtils.toPose2D(pose);
+  }
+}
@@ -0,0 +1,206 @@
+package limelight.benchmarks;
+
+import java.util.Locale;
+
+/**
+ * Limelight payloads for the benchmarks, laid out exactly as a Limelight publishes them on NetworkTables.
+ * <p>
+ * The values are generated deterministically from the tag/detection index so that every benchmark run decodes the
+ * same bytes, with realistic magnitudes and number formatting for the JSON.
+ */
+final class Payloads
+{
+
+  /**
+   * {@link limelight.Limelight} name used by the benchmarks.
+   */
+  static final String LIMELIGHT_NAME = "limelight-bench";
+
+  private Payloads()
+  {
+  }
+
+  /**
+   * Build the "json" results for a frame.
+   *
+   * @param tags       AprilTags in view.
+   * @param detections Neural detector results.
+   * @return JSON results string.
+   */
+  static String resultsJson(int tags, int detections)
+  {
+    StringBuilder json = new StringBuilder(1024 + tags * 700 + detections * 250);
+    json.append("{\"pID\":1.0,\"tl\":18.9305,\"cl\":24.1032,\"ts\":95217836.125,\"ts_rio\":1523.880214,")
+        .append("\"ts_nt\":1523880214,\"ts_sys\":95217812,\"ts_us\":95217836125,\"v\":")
+        .append(tags + detections > 0 ? 1 : 0)
+        .append(",\"pTYPE\":\"pipe_fiducial\",\"stdev_mt1\":[0.11,0.09,0.0,0.0,0.0,2.5],")
+        .append("\"stdev_mt2\":[0.05,0.04,0.0,0.0,0.0,0.0],");
+    appendArray(json, "botpose", pose(0));
+    json.append(',');
+    appendArray(json, "botpose_wpired", pose(1));
+    json.append(',');
+    appendArray(json, "botpose_wpiblue", pose(2));
+    json.append(',');
+    appendArray(json, "botpose_orb", pose(3));
+    json.append(',');
+    appendArray(json, "botpose_orb_wpired", pose(4));
+    json.append(',');
+    appendArray(json, "botpose_orb_wpiblue", pose(5));
+    json.append(String.format(Locale.ROOT,
+                              ",\"botpose_tagcount\":%d,\"botpose_span\":%.6f,\"botpose_avgdist\":%.6f,"
+                              + "\"botpose_avgarea\":%.6f,",
+                              tags, tags > 1 ? 1.28 : 0.0, 2.74, 0.31));
+    appendArray(json, "t6c_rs", new double[]{0.27, -0.18, 0.42, 0.0, -20.0, 15.0});
+    json.append(",\"Retro\":[],\"Classifier\":[],\"Barcode\":[],\"Fiducial\":[");
+    for (int i = 0; i < tags; i++)
+    {
+      if (i > 0)
+      {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT,
+                                "{\"fID\":%d,\"fam\":\"36H11C\",\"pts\":[],\"skew\":[],\"ta\":%.9f,"
+                                + "\"tx\":%.9f,\"tx_nocross\":%.9f,\"txp\":%.4f,\"ty\":%.9f,\"ty_nocross\":%.9f,"
+                                + "\"typ\":%.4f,",
+                                i + 1, 0.0021 + i * 0.0003, -12.5 + i, -13.1 + i, 512.25 + i * 9, 4.75 - i * 0.2,
+                                4.12 - i * 0.2, 341.5 - i * 3));
+      appendArray(json, "t6c_ts", pose(10 + i));
+      json.append(',');
+      appendArray(json, "t6r_fs", pose(20 + i));
+      json.append(',');
+      appendArray(json, "t6r_ts", pose(30 + i));
+      json.append(',');
+      appendArray(json, "t6t_cs", pose(40 + i));
+      json.append(',');
+      appendArray(json, "t6t_rs", pose(50 + i));
+      json.append('}');
+    }
+    json.append("],\"Detector\":[");
+    for (int i = 0; i < detections; i++)
+    {
+      if (i > 0)
+      {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT,
+                                "{\"class\":\"%s\",\"classID\":%d,\"conf\":%.9f,\"pts\":[],\"ta\":%.9f,"
+                                + "\"tx\":%.9f,\"tx_nocross\":%.9f,\"txp\":%.4f,\"ty\":%.9f,\"ty_nocross\":%.9f,"
+                                + "\"typ\":%.4f}",
+                                i % 2 == 0 ? "algae" : "coral", i % 2, 0.93 - i * 0.01, 0.0142 - i * 0.0004,
+                                -20.5 + i * 2, -21.0 + i * 2, 120.5 + i * 25, 10.25 - i, 9.75 - i, 80.5 + i * 12));
+    }
+    json.append("]}");
+    return json.toString();
+  }
+
+  /**
+   * Build the "rawfiducials" array for a frame.
+   *
+   * @param tags AprilTags in view.
+   * @return Raw fiducial array, 7 values per tag.
+   */
+  static double[] rawFiducials(int tags)
+  {
+    double[] data = new double[tags * 7];
+    fillFiducials(data, 0, tags);
+    return data;
+  }
+
+  /**
+   * Build the "rawdetections" array for a frame.
+   *
+   * @param detections Neural detector results.
+   * @return Raw detection array, 12 values per detection.
+   */
+  static double[] rawDetections(int detections)
+  {
+    double[] data = new double[detections * 12];
+    for (int i = 0; i < detections; i++)
+    {
+      int base = i * 12;
+      data[base] = i % 2;
+      data[base + 1] = -20.5 + i * 2;
+      data[base + 2] = 10.25 - i;
+      data[base + 3] = 0.0142 - i * 0.0004;
+      for (int corner = 0; corner < 4; corner++)
+      {
+        data[base + 4 + corner * 2] = 100 + i * 25 + (corner == 1 || corner == 2 ? 40 : 0);
+        data[base + 5 + corner * 2] = 60 + i * 12 + (corner >= 2 ? 30 : 0);
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Build a "botpose_*" array for a frame.
+   *
+   * @param tags AprilTags in view.
+   * @return Bot pose array, 11 values followed by 7 values per tag.
+   */
+  static double[] botpose(int tags)
+  {
+    double[] data = new double[11 + tags * 7];
+    System.arraycopy(pose(2), 0, data, 0, 6);
+    data[6] = 43.03;
+    data[7] = tags;
+    data[8] = tags > 1 ? 1.28 : 0.0;
+    data[9] = 2.74;
+    data[10] = 0.31;
+    fillFiducials(data, 11, tags);
+    return data;
+  }
+
+  /**
+   * Fill raw fiducial values into an array.
+   *
+   * @param data   Array to fill.
+   * @param offset Index of the first fiducial.
+   * @param tags   AprilTags in view.
+   */
+  private static void fillFiducials(double[] data, int offset, int tags)
+  {
+    for (int i = 0; i < tags; i++)
+    {
+      int base = offset + i * 7;
+      data[base] = i + 1;
+      data[base + 1] = -12.5 + i;
+      data[base + 2] = 4.75 - i * 0.2;
+      data[base + 3] = 0.0021 + i * 0.0003;
+      data[base + 4] = 2.4 + i * 0.15;
+      data[base + 5] = 2.6 + i * 0.15;
+      data[base + 6] = 0.02 + (i % 5) * 0.04;
+    }
+  }
+
+  /**
+   * A 6 value pose [x, y, z, roll, pitch, yaw] that differs per seed.
+   *
+   * @param seed Seed.
+   * @return Pose array, angles in degrees.
+   */
+  static double[] pose(int seed)
+  {
+    return new double[]{3.1 + seed * 0.01, 4.2 - seed * 0.01, 0.05, 0.4, -1.2, 37.5 + seed};
+  }
+
+  /**
+   * Append a JSON number array.
+   *
+   * @param json   JSON being built.
+   * @param name   Key.
+   * @param values Numbers.
+   */
+  private static void appendArray(StringBuilder json, String name, double[] values)
+  {
+    json.append('"').append(name).append("\":[");
+    for (int i = 0; i < values.length; i++)
+    {
+      if (i > 0)
+      {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT, "%.9f", values[i]));
+    }
+    json.append(']');
+  }
+}
@@ -0,0 +1,83 @@
+package limelight.benchmarks;
+
+import java.util.Optional;
+import limelight.estimator.LimelightPoseEstimator.BotPose;
+import limelight.estimator.PoseEstimate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * {@link PoseEstimate#getPoseEstimate()} reading a MegaTag2 botpose from the local NetworkTables instance.
+ * <p>
+ * The "fresh" benchmarks republish the botpose inside the benchmark body, as a per-invocation setup would cost more
+ * than the decode; subtract the matching "publish" baseline to get the decode alone.
+ */
+public class PoseEstimateBenchmark
+{
+
+  /**
+   * NetworkTables frame and the {@link PoseEstimate}s reading it.
+   */
+  @State(Scope.Thread)
+  public static class Frame
+  {
+
+    @Param({"1", "4", "16"})
+    public int tags;
+
+    LimelightFixture fixture;
+    PoseEstimate     estimate;
+    PoseEstimate     lightweightEstimate;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+      fixture = new LimelightFixture(tags, 0);
+      estimate = fixture.limelight.getBotPoseEstimate(BotPose.BLUE_MEGATAG2);
+      lightweightEstimate = fixture.limelight.getBotPoseEstimate(BotPose.BLUE).setLightweightDecoding(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+      fixture.close();
+    }
+  }
+
+  @Benchmark
+  public void publishBotposeMegaTag2(Frame frame)
+  {
+    frame.fixture.publishBotposeMegaTag2();
+  }
+
+  @Benchmark
+  public void publishBotpose(Frame frame)
+  {
+    frame.fixture.publishBotpose();
+  }
+
+  @Benchmark
+  public Optional<PoseEstimate> getPoseEstimateFresh(Frame frame)
+  {
+    frame.fixture.publishBotposeMegaTag2();
+    return frame.estimate.getPoseEstimate();
+  }
+
+  @Benchmark
+  public Optional<PoseEstimate> getPoseEstimateLightweightFresh(Frame frame)
+  {
+    frame.fixture.publishBotpose();
+    return frame.lightweightEstimate.getPoseEstimate();
+  }
+
+  @Benchmark
+  public Optional<PoseEstimate> getPoseEstimateUnchanged(Frame frame)
+  {
+    return frame.estimate.getPoseEstimate();
+  }
+}
@@ -0,0 +1,54 @@
+package limelight.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import limelight.structures.LimelightResults;
+import limelight.structures.LimelightResultsDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * JSON results decoding without NetworkTables: the {@link ObjectMapper} used by
+ * {@link limelight.structures.LimelightData#getResults()} against the streaming {@link LimelightResultsDecoder}.
+ */
+@State(Scope.Thread)
+public class ResultsDecodeBenchmark
+{
+
+  @Param({"1", "4", "16"})
+  public int tags;
+
+  @Param({"0", "5", "20"})
+  public int detections;
+
+  private String                  json;
+  private ObjectMapper            objectMapper;
+  private LimelightResultsDecoder decoder;
+  private LimelightResults        results;
+
+  @Setup
+  public void setup()
+  {
+    json = Payloads.resultsJson(tags, detections);
+    objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    decoder = new LimelightResultsDecoder();
+    results = new LimelightResults();
+  }
+
+  @Benchmark
+  public LimelightResults objectMapper() throws IOException
+  {
+    return objectMapper.readValue(json, LimelightResults.class);
+  }
+
+  @Benchmark
+  public LimelightResults streamingDecoder() throws IOException
+  {
+    decoder.decode(json, results);
+    return results;
+  }
+}
@@ -2,10 +2,18 @@ package frc.robot;
 
 import static edu.wpi.first.units.Units.DegreesPerSecond;
 
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.TimedRobot;
 import limelight.Limelight;
+import limelight.LimelightRecorder;
 import limelight.estimator.LimelightPoseEstimator;
+import limelight.simulation.SimulatedLimelight;
 import limelight.structures.AngularVelocity3d;
 
 public class Robot extends TimedRobot {
@@ -14,10 +22,19 @@ public class Robot extends TimedRobot {
   Limelight limelight;
   LimelightPoseEstimator limelightPoseEstimatorMT2;
   LimelightPoseEstimator limelightPoseEstimator;
+  SimulatedLimelight simulatedLimelight;
 
   public Robot() {
       limelight = new Limelight(name);
 
+      // opt-in: record every Limelight frame to the DataLog for debugging after the match. Teams that already log
+      // all of NetworkTables with DataLogManager have these entries and don't need the recorder.
+      var recordLimelight = false;
+      if (recordLimelight) {
+        DataLogManager.start();
+        new LimelightRecorder(DataLogManager.getLog()).record(limelight);
+      }
+
       var useMegaTag2 = true;
       limelightPoseEstimatorMT2 = limelight.getPoseEstimator(useMegaTag2);
 
@@ -117,10 +134,16 @@ public class Robot extends TimedRobot {
   public void testPeriodic() {}
 
   @Override
-  public void simulationInit() {}
+  public void simulationInit() {
+      // stand the robot still facing the blue alliance wall so the simulated camera publishes tags
+      var robotPose = new Pose2d(3.0, 4.0, Rotation2d.fromDegrees(180.));
+      var robotToCamera = new Transform3d(0.3, 0., 0.25, new Rotation3d());
+      simulatedLimelight = new SimulatedLimelight(name, () -> robotPose, robotToCamera,
+          AprilTagFieldLayout.loadField(AprilTagFields.kDefaultField));
+  }
 
   @Override
-  public void simulationPeriodic() {}
+  public void simulationPeriodic() {simulatedLimelight.update();}
 }
 // Example 1: Classifier Target Tracking
 // Limelight limelight = new Limelight("limelight");
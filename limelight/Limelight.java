@@ -1,20 +1,16 @@
 package limelight;
 
 
-import static limelight.structures.LimelightUtils.getLimelightURLString;
-
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.Alert;
-import edu.wpi.first.wpilibj.Alert.AlertType;
-import edu.wpi.first.wpilibj.DriverStation;
 
-import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.util.EnumMap;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import limelight.estimator.LimelightPoseEstimator;
+import limelight.estimator.LimelightPoseEstimator.BotPose;
+import limelight.estimator.PoseEstimate;
+import limelight.estimator.PoseHistory;
 import limelight.structures.LimelightData;
 import limelight.structures.LimelightResults;
 import limelight.structures.LimelightSettings;
@@ -28,28 +24,86 @@ public class Limelight
   /**
    * {@link Limelight} name.
    */
-  public final String            limelightName;
+  public final String             limelightName;
+  /**
+   * {@link NetworkTableInstance} the {@link Limelight} publishes to.
+   */
+  private final NetworkTableInstance ntInstance;
+  /**
+   * Asynchronous {@link LimelightDiscovery} of this {@link Limelight}.
+   */
+  private final LimelightDiscovery discovery;
   /**
    * {@link Limelight} data from NetworkTables.
    */
-  private      LimelightData     limelightData;
+  private      LimelightData      limelightData;
   /**
    * {@link Limelight} settings that we apply.
    */
-  private      LimelightSettings settings;
+  private      LimelightSettings  settings;
+  /**
+   * {@link PoseEstimate} for each {@link BotPose} of this {@link Limelight}, subscribed once at construction.
+   */
+  private final EnumMap<BotPose, PoseEstimate> poseEstimates = new EnumMap<>(BotPose.class);
+  /**
+   * {@link PoseHistory} of the pose estimates accepted from this {@link Limelight}.
+   */
+  private final PoseHistory        poseHistory = new PoseHistory(PoseHistory.DEFAULT_CAPACITY);
+  /**
+   * {@link RobotOrientationPublisher} of this {@link Limelight}, created on first use.
+   */
+  private      RobotOrientationPublisher orientationPublisher;
+  /**
+   * {@link LimelightHttpClient} of this {@link Limelight}, created on first use.
+   */
+  private      LimelightHttpClient       httpClient;
+  /**
+   * {@link LimelightClockSync} converting this {@link Limelight}'s timestamps to FPGA time.
+   */
+  private final LimelightClockSync       clockSync = new LimelightClockSync();
+  /**
+   * {@link LimelightMetrics} of the read paths of this {@link Limelight}.
+   */
+  private final LimelightMetrics         metrics;
+  /**
+   * {@link LimelightWatchdog} of the heartbeat of this {@link Limelight}.
+   */
+  private final LimelightWatchdog        watchdog;
 
 
   /**
    * Constructs and configures the {@link Limelight} NT Values.
+   * <p>
+   * Construction does not wait for the {@link Limelight} to attach; readers return empty until it does. Use
+   * {@link #getDiscovery()} to check or wait for it.
    *
    * @param name Name of the limelight
    */
      public Limelight(String name)
   {
-    isAvailable(name);
+    this(name, NetworkTableInstance.getDefault());
+  }
+
+  /**
+   * Constructs and configures the {@link Limelight} NT Values on a specific {@link NetworkTableInstance}, such as a
+   * private instance fed by {@link LimelightReplay} or a simulated camera.
+   *
+   * @param name       Name of the limelight
+   * @param ntInstance {@link NetworkTableInstance} the limelight publishes to.
+   */
+  public Limelight(String name, NetworkTableInstance ntInstance)
+  {
     limelightName = name;
+    this.ntInstance = ntInstance;
+    discovery = new LimelightDiscovery(getNTTable(), name, LimelightDiscovery.DEFAULT_TIMEOUT_SECONDS);
+    metrics = new LimelightMetrics(this);
+    watchdog = new LimelightWatchdog(getNTTable(), name);
     limelightData = new LimelightData(this);
     settings = new LimelightSettings(this);
+    for (BotPose botPose : BotPose.values())
+    {
+      poseEstimates.put(botPose, new PoseEstimate(this, botPose.getEntryName(), botPose.isMegaTag2()));
+    }
   }
 
   /**
@@ -63,6 +117,135 @@ public class Limelight
     return new LimelightPoseEstimator(this, megatag2);
   }
 
+  /**
+   * Get this {@link Limelight}'s {@link PoseEstimate} for the given {@link BotPose}. The same object is returned on
+   * every call; use {@link PoseEstimate#getPoseEstimate()} to refresh it.
+   *
+   * @param botPose {@link BotPose} to get.
+   * @return {@link PoseEstimate} for this {@link Limelight}.
+   */
+  public PoseEstimate getBotPoseEstimate(BotPose botPose)
+  {
+    return poseEstimates.get(botPose);
+  }
+
+  /**
+   * Get the {@link PoseHistory} of the pose estimates accepted from this {@link Limelight}, filled by
+   * {@link limelight.estimator.LimelightFusion} or by the robot code.
+   *
+   * @return {@link PoseHistory} for this {@link Limelight}.
+   */
+  public PoseHistory getPoseHistory()
+  {
+    return poseHistory;
+  }
+
+  /**
+   * Get the low-latency {@link RobotOrientationPublisher} of this {@link Limelight} for MegaTag2, creating it on first
+   * use.
+   *
+   * @return {@link RobotOrientationPublisher} for this {@link Limelight}.
+   */
+  public synchronized RobotOrientationPublisher getRobotOrientationPublisher()
+  {
+    if (orientationPublisher == null)
+    {
+      orientationPublisher = new RobotOrientationPublisher(this);
+    }
+    return orientationPublisher;
+  }
+
+  /**
+   * Get the {@link LimelightClockSync} used to give every frame of this {@link Limelight} an FPGA capture timestamp.
+   *
+   * @return {@link LimelightClockSync} for this {@link Limelight}.
+   */
+  public LimelightClockSync getClockSync()
+  {
+    return clockSync;
+  }
+
+  /**
+   * Get the {@link LimelightMetrics} of the read paths of this {@link Limelight}, disabled until
+   * {@link LimelightMetrics#setEnabled(boolean)}.
+   *
+   * @return {@link LimelightMetrics} for this {@link Limelight}.
+   */
+  public LimelightMetrics getMetrics()
+  {
+    return metrics;
+  }
+
+  /**
+   * Get the asynchronous {@link LimelightDiscovery} of this {@link Limelight}.
+   *
+   * @return {@link LimelightDiscovery} for this {@link Limelight}.
+   */
+  public LimelightDiscovery getDiscovery()
+  {
+    return discovery;
+  }
+
+  /**
+   * Has this {@link Limelight} attached to NetworkTables?
+   *
+   * @return True once the {@link Limelight} published its "getpipe" key.
+   */
+  public boolean isAttached()
+  {
+    return discovery.isAttached();
+  }
+
+  /**
+   * Get the {@link LimelightWatchdog} of the heartbeat of this {@link Limelight}.
+   *
+   * @return {@link LimelightWatchdog} for this {@link Limelight}.
+   */
+  public LimelightWatchdog getWatchdog()
+  {
+    return watchdog;
+  }
+
+  /**
+   * Is this {@link Limelight} attached and producing frames? The pose, results and target getters return empty
+   * otherwise.
+   *
+   * @return True if attached and the {@link LimelightWatchdog} is {@link LimelightWatchdog.State#CONNECTED} or
+   *     disabled.
+   */
+  public boolean isFresh()
+  {
+    return discovery.isAttached() && watchdog.isFresh();
+  }
+
+  /**
+   * Decode the JSON results, raw fiducials, raw detections and every bot pose on the NetworkTables listener thread
+   * as they arrive, so the robot loop getters only read the latest decoded snapshot.
+   *
+   * @see LimelightData#startBackgroundDecoding()
+   * @see PoseEstimate#startBackgroundDecoding()
+   */
+  public void startBackgroundDecoding()
+  {
+    limelightData.startBackgroundDecoding();
+    for (PoseEstimate estimate : poseEstimates.values())
+    {
+      estimate.startBackgroundDecoding();
+    }
+  }
+
+  /**
+   * Go back to decoding on the robot loop when the getters are called.
+   */
+  public void stopBackgroundDecoding()
+  {
+    limelightData.stopBackgroundDecoding();
+    for (PoseEstimate estimate : poseEstimates.values())
+    {
+      estimate.stopBackgroundDecoding();
+    }
+  }
+
 
   /**
    * Get the {@link LimelightSettings} preparatory to changing settings.
@@ -94,34 +277,29 @@ public class Limelight
    * Asynchronously take a snapshot in limelight.
    *
    * @param snapshotname Snapshot name to save.
+   * @return Future completed with true if the {@link Limelight} took the snapshot.
    */
-  public void snapshot(String snapshotname)
+  public CompletableFuture<Boolean> snapshot(String snapshotname)
   {
-    CompletableFuture.supplyAsync(() -> {
-      URL url = getLimelightURLString(limelightName, "capturesnapshot");
-      try
-      {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        if (snapshotname != null && snapshotname != "")
-        {
-          connection.setRequestProperty("snapname", snapshotname);
-        }
-
-        int responseCode = connection.getResponseCode();
-        if (responseCode == 200)
-        {
-          return true;
-        } else
-        {
-          System.err.println("Bad LL Request");
-        }
-      } catch (IOException e)
-      {
-        System.err.println(e.getMessage());
-      }
-      return false;
-    });
+    return getHttpClient().captureSnapshot(snapshotname)
+                          .exceptionally(error -> {
+                            System.err.println("Bad LL Request: " + error.getMessage());
+                            return false;
+                          });
+  }
+
+  /**
+   * Get the {@link LimelightHttpClient} for the REST API of this {@link Limelight}, creating it on first use.
+   *
+   * @return {@link LimelightHttpClient} for this {@link Limelight}.
+   */
+  public synchronized LimelightHttpClient getHttpClient()
+  {
+    if (httpClient == null)
+    {
+      httpClient = new LimelightHttpClient(limelightName);
+    }
+    return httpClient;
   }
 
 
@@ -141,7 +319,7 @@ public class Limelight
    */
   public void flush()
   {
-    NetworkTableInstance.getDefault().flush();
+    ntInstance.flush();
   }
 
   /**
@@ -151,15 +329,15 @@ public class Limelight
    */
   public NetworkTable getNTTable()
   {
-    return NetworkTableInstance.getDefault().getTable(limelightName);
+    return ntInstance.getTable(limelightName);
   }
 
   
   /**
    * Verify limelight name exists as a table in NT.
    * <p>
-   * This check is expected to be run once during robot construction and is
-   * not intended to be checked in the iterative loop.
+   * This check blocks for up to 15 seconds and is no longer run by the {@link Limelight} constructor; prefer the
+   * non-blocking {@link #getDiscovery()}.
    * <p>
    * Use check "yourLimelightObject.getData().targetData.getTargetStatus())"" for the validity
    * of an iteration for 2d targeting.
@@ -184,32 +362,7 @@ public class Limelight
       try {Thread.sleep(1000);}catch(InterruptedException e){e.printStackTrace();}
     }
 
-    StringBuilder message = new StringBuilder();
-    message.append("Your limelight name \"");
-    message.append(limelightName);
-    message.append("\" doesn't exist on the network (no getpipe key).\nThese may be available <");
-    var foundNoLL = true;
-    var NTtables = NetworkTableInstance.getDefault().getTable("/").getSubTables().toArray();
-    for (Object element:NTtables)
-    { 
-      var tableName = (String)element;
-      if (tableName.startsWith("limelight"))
-      {
-        foundNoLL = false;
-        message.append(tableName);
-        message.append(" ");
-      }
-    }
-
-    if (foundNoLL)
-    {
-      message.append("--none--");
-    }
-
-    message.append(">");
-
-    DriverStation.reportError(message.toString(), false);     
-    new Alert( message.toString() , AlertType.kError).set(true);
+    LimelightDiscovery.reportMissing(NetworkTableInstance.getDefault(), limelightName);
     
     return false;
   }
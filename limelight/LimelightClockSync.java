@@ -0,0 +1,255 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.wpilibj.Timer;
+import limelight.structures.LimelightResults;
+
+/**
+ * Per-camera estimate of the offsets between the three clocks a {@link Limelight} frame passes through: the
+ * {@link Limelight}'s own clock ("ts" in the JSON results), the local NetworkTables clock that stamps received values,
+ * and {@link Timer#getFPGATimestamp()} used by WPILib pose estimators.
+ * <p>
+ * A sample of NetworkTables receive time minus {@link Limelight} publish time is the clock offset plus the network
+ * delay of that frame, which is never negative, so the {@link Limelight} offset is the minimum of a window of recent
+ * samples: the lower envelope, reached by the frames that were delayed least. The FPGA offset is read between two
+ * NetworkTables clock reads, and the sample with the tightest bracket in its window is kept. FPGA samples are taken at
+ * most every {@link #FPGA_SAMPLE_PERIOD_SECONDS} when a time is converted, not on every decode.
+ * <p>
+ * Every frame received over NetworkTables, whether JSON results, a botpose or t2d, gets its capture timestamp from
+ * {@link #captureTimestamp(long, double)}: its receive time converted to FPGA time minus its latency. Values of one
+ * frame arrive together, so the same frame gets the same timestamp on every path. Results polled over HTTP have no
+ * receive time and are converted from the {@link Limelight} clock instead.
+ */
+public class LimelightClockSync
+{
+
+  /**
+   * Number of samples in each window.
+   */
+  public static final int    WINDOW                     = 31;
+  /**
+   * Minimum time between two FPGA offset samples.
+   */
+  public static final double FPGA_SAMPLE_PERIOD_SECONDS = 1.0;
+
+  /**
+   * Samples of FPGA seconds minus NetworkTables seconds, ranked by the width of their bracket.
+   */
+  private final OffsetWindow ntToFpga       = new OffsetWindow();
+  /**
+   * Samples of NetworkTables receive seconds minus {@link Limelight} publish seconds, ranked by value.
+   */
+  private final OffsetWindow limelightToNt  = new OffsetWindow();
+  /**
+   * NetworkTables time of the last FPGA offset sample in microseconds, 0 if none.
+   */
+  private       long         lastFpgaSample = 0;
+
+  /**
+   * Create a {@link LimelightClockSync} with no samples. Until NetworkTables and FPGA samples exist the clocks are
+   * assumed to be equal, which is the case on a roboRIO.
+   */
+  public LimelightClockSync()
+  {
+  }
+
+  /**
+   * Sample the offset between the NetworkTables clock and the FPGA clock now.
+   */
+  public synchronized void sampleFpga()
+  {
+    // Read the FPGA clock between two NetworkTables reads so the midpoint matches it.
+    long   before = NetworkTablesJNI.now();
+    double fpga   = Timer.getFPGATimestamp();
+    long   after  = NetworkTablesJNI.now();
+    ntToFpga.add(fpga - (before + after) / 2_000_000.0, after - before);
+    lastFpgaSample = after;
+  }
+
+  /**
+   * Sample the FPGA offset if none was taken within {@link #FPGA_SAMPLE_PERIOD_SECONDS}.
+   */
+  private void sampleFpgaIfDue()
+  {
+    if (lastFpgaSample == 0 || NetworkTablesJNI.now() - lastFpgaSample >= FPGA_SAMPLE_PERIOD_SECONDS * 1_000_000)
+    {
+      sampleFpga();
+    }
+  }
+
+  /**
+   * Add a sample pairing a {@link Limelight} publish time with the NetworkTables time it was received.
+   *
+   * @param limelightPublishMillis {@link Limelight} publish time in milliseconds, "ts" of the JSON results.
+   * @param ntReceiveMicros        NetworkTables receive time in microseconds.
+   */
+  public synchronized void addLimelightSample(double limelightPublishMillis, long ntReceiveMicros)
+  {
+    if (limelightPublishMillis <= 0 || ntReceiveMicros <= 0)
+    {
+      return;
+    }
+    double offset = ntReceiveMicros / 1_000_000.0 - limelightPublishMillis / 1_000.0;
+    limelightToNt.add(offset, offset);
+  }
+
+  /**
+   * Add a sample from decoded {@link LimelightResults}.
+   *
+   * @param results         Decoded {@link LimelightResults}.
+   * @param ntReceiveMicros NetworkTables receive time of the JSON in microseconds.
+   */
+  public void addLimelightSample(LimelightResults results, long ntReceiveMicros)
+  {
+    addLimelightSample(results.timestamp_LIMELIGHT_publish, ntReceiveMicros);
+  }
+
+  /**
+   * Convert a NetworkTables time to FPGA time.
+   *
+   * @param ntMicros NetworkTables time in microseconds.
+   * @return FPGA time in seconds.
+   */
+  public synchronized double ntToFpga(long ntMicros)
+  {
+    sampleFpgaIfDue();
+    return ntMicros / 1_000_000.0 + ntToFpga.best();
+  }
+
+  /**
+   * Has the offset between the {@link Limelight} clock and NetworkTables been sampled?
+   *
+   * @return True once JSON results were decoded.
+   */
+  public synchronized boolean isLimelightSynced()
+  {
+    return limelightToNt.size() > 0;
+  }
+
+  /**
+   * Convert a {@link Limelight} time to FPGA time, as the least delayed frames were received.
+   *
+   * @param limelightMillis {@link Limelight} time in milliseconds.
+   * @return FPGA time in seconds, or NaN if {@link #isLimelightSynced()} is false.
+   */
+  public synchronized double limelightToFpga(double limelightMillis)
+  {
+    if (limelightToNt.size() == 0)
+    {
+      return Double.NaN;
+    }
+    sampleFpgaIfDue();
+    return limelightMillis / 1_000.0 + limelightToNt.best() + ntToFpga.best();
+  }
+
+  /**
+   * Capture time of a frame received over NetworkTables.
+   *
+   * @param ntReceiveMicros NetworkTables receive time in microseconds.
+   * @param latencyMillis   Total {@link Limelight} latency in milliseconds, capture plus pipeline.
+   * @return Capture time in FPGA seconds.
+   */
+  public double captureTimestamp(long ntReceiveMicros, double latencyMillis)
+  {
+    return ntToFpga(ntReceiveMicros) - latencyMillis / 1_000.0;
+  }
+
+  /**
+   * Capture time of {@link LimelightResults} received over NetworkTables, the same as
+   * {@link #captureTimestamp(long, double)} gives the other values of the frame.
+   *
+   * @param results         {@link LimelightResults}.
+   * @param ntReceiveMicros NetworkTables receive time of the JSON in microseconds.
+   * @return Capture time in FPGA seconds.
+   */
+  public double captureTimestamp(LimelightResults results, long ntReceiveMicros)
+  {
+    return captureTimestamp(ntReceiveMicros, results.latency_capture + results.latency_pipeline);
+  }
+
+  /**
+   * Capture time of {@link LimelightResults} polled over HTTP, from the {@link Limelight} clock when synced.
+   *
+   * @param results       {@link LimelightResults}.
+   * @param arrivalMicros NetworkTables time the response arrived in microseconds, used until the clocks are synced.
+   * @return Capture time in FPGA seconds.
+   */
+  public double httpCaptureTimestamp(LimelightResults results, long arrivalMicros)
+  {
+    double latencyMillis = results.latency_capture + results.latency_pipeline;
+    double capture       = limelightToFpga(results.timestamp_LIMELIGHT_publish - latencyMillis);
+    return Double.isNaN(capture) ? captureTimestamp(arrivalMicros, latencyMillis) : capture;
+  }
+
+  /**
+   * Window of offset samples keeping the one with the lowest rank.
+   */
+  private static final class OffsetWindow
+  {
+
+    /**
+     * Samples, oldest overwritten first.
+     */
+    private final double[] samples = new double[WINDOW];
+    /**
+     * Rank of each sample; lower is better.
+     */
+    private final double[] ranks   = new double[WINDOW];
+    /**
+     * Number of samples.
+     */
+    private       int      size    = 0;
+    /**
+     * Index of the next sample.
+     */
+    private       int      next    = 0;
+    /**
+     * Sample with the lowest rank.
+     */
+    private       double   best    = 0;
+
+    /**
+     * Add a sample and update the best one.
+     *
+     * @param sample Offset in seconds.
+     * @param rank   Rank of the sample; lower is better.
+     */
+    void add(double sample, double rank)
+    {
+      samples[next] = sample;
+      ranks[next] = rank;
+      next = (next + 1) % WINDOW;
+      size = Math.min(size + 1, WINDOW);
+      int bestIndex = 0;
+      for (int i = 1; i < size; i++)
+      {
+        if (ranks[i] < ranks[bestIndex])
+        {
+          bestIndex = i;
+        }
+      }
+      best = samples[bestIndex];
+    }
+
+    /**
+     * Number of samples.
+     *
+     * @return Sample count.
+     */
+    int size()
+    {
+      return size;
+    }
+
+    /**
+     * Sample with the lowest rank.
+     *
+     * @return Offset in seconds, 0 without samples.
+     */
+    double best()
+    {
+      return best;
+    }
+  }
+}
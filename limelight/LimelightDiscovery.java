@@ -0,0 +1,232 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asynchronous discovery of a {@link Limelight} on NetworkTables.
+ * <p>
+ * A {@link Limelight} publishes the "getpipe" key once it is on the network. Instead of polling for that key, a
+ * NetworkTables topic listener marks the camera as attached as soon as the topic is published, so constructing a
+ * {@link Limelight} never blocks the robot. If the camera has not attached within the timeout an error is reported,
+ * but the listener keeps watching and the camera still attaches if it shows up later. {@link #close()} removes the
+ * listener.
+ * <p>
+ * The missing {@link Alert} is not thread-safe, so it is raised and cleared from the robot thread by
+ * {@link #getState()} and {@link #isAttached()}, which {@link Limelight#isFresh()} calls on every getter.
+ */
+public class LimelightDiscovery implements AutoCloseable
+{
+
+  /**
+   * Default time to wait for the {@link Limelight} before reporting it missing.
+   */
+  public static final double DEFAULT_TIMEOUT_SECONDS = 15;
+
+  /**
+   * {@link Limelight} name being discovered.
+   */
+  private final    String                     limelightName;
+  /**
+   * Completed with true when the {@link Limelight} attaches, or false when the timeout passes first.
+   */
+  private final    CompletableFuture<Boolean> attached;
+  /**
+   * {@link NetworkTableInstance} the listener is registered on.
+   */
+  private final    NetworkTableInstance       instance;
+  /**
+   * Handle of the "getpipe" topic listener.
+   */
+  private final    int                        listenerHandle;
+  /**
+   * Alert raised while the {@link Limelight} is {@link State#MISSING}, set on the robot thread by {@link #getState()}.
+   */
+  private final    Alert                      missingAlert;
+  /**
+   * Current discovery {@link State}, moved from {@link State#SEARCHING} by whichever of the timeout and the listener
+   * comes first.
+   */
+  private final    AtomicReference<State>     state        = new AtomicReference<>(State.SEARCHING);
+  /**
+   * {@link State} the missing alert was last set for. Only used by the robot thread.
+   */
+  private          State                      alertedState = State.SEARCHING;
+
+  /**
+   * Alert raised by {@link #reportMissing(NetworkTableInstance, String)}, created on first use and reused.
+   */
+  private static   Alert                      reportedAlert;
+
+  /**
+   * Start discovering the {@link Limelight} with the given table.
+   *
+   * @param limelightTable {@link NetworkTable} of the {@link Limelight}.
+   * @param limelightName  {@link Limelight} name.
+   * @param timeoutSeconds Seconds to wait before reporting the {@link Limelight} missing.
+   */
+  public LimelightDiscovery(NetworkTable limelightTable, String limelightName, double timeoutSeconds)
+  {
+    this.limelightName = limelightName;
+    instance = limelightTable.getInstance();
+    missingAlert = new Alert("Limelight \"" + limelightName + "\" doesn't exist on the network (no getpipe key)",
+                             AlertType.kError);
+    attached = new CompletableFuture<>();
+    attached.completeOnTimeout(false, (long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS)
+            .thenAccept(found -> {
+              if (!found && state.compareAndSet(State.SEARCHING, State.MISSING))
+              {
+                DriverStation.reportError(missingMessage(instance, limelightName), false);
+              }
+            });
+    // kImmediate fires right away if the Limelight already published getpipe.
+    listenerHandle = instance.addListener(limelightTable.getTopic("getpipe"),
+                                          EnumSet.of(NetworkTableEvent.Kind.kImmediate,
+                                                     NetworkTableEvent.Kind.kPublish),
+                                          event -> {
+                                            // ATTACHED is final, so it may replace SEARCHING or MISSING.
+                                            state.set(State.ATTACHED);
+                                            attached.complete(true);
+                                          });
+  }
+
+  /**
+   * Get the current discovery {@link State}, raising or clearing the missing alert if it changed. Call from the robot
+   * thread.
+   *
+   * @return {@link State} of the {@link Limelight}.
+   */
+  public State getState()
+  {
+    State current = state.get();
+    if (current != alertedState)
+    {
+      missingAlert.set(current == State.MISSING);
+      alertedState = current;
+    }
+    return current;
+  }
+
+  /**
+   * Has the {@link Limelight} attached to NetworkTables? Call from the robot thread.
+   *
+   * @return True once the "getpipe" key was published.
+   */
+  public boolean isAttached()
+  {
+    return getState() == State.ATTACHED;
+  }
+
+  /**
+   * Future completed with true when the {@link Limelight} attaches, or false if the timeout passes first. A
+   * {@link Limelight} attaching after the timeout is reflected by {@link #getState()} but not by this future.
+   *
+   * @return Discovery result.
+   */
+  public CompletableFuture<Boolean> getAttached()
+  {
+    return attached;
+  }
+
+  /**
+   * Get the {@link Limelight} name being discovered.
+   *
+   * @return {@link Limelight} name.
+   */
+  public String getLimelightName()
+  {
+    return limelightName;
+  }
+
+  /**
+   * Stop watching for the {@link Limelight} and clear its missing alert.
+   */
+  @Override
+  public void close()
+  {
+    instance.removeListener(listenerHandle);
+    missingAlert.set(false);
+  }
+
+  /**
+   * Report a missing {@link Limelight} with a WPILib Error Alert listing the Limelight tables that do exist. The same
+   * {@link Alert} is reused by every call and shows the latest missing {@link Limelight}.
+   *
+   * @param instance      {@link NetworkTableInstance} that was searched.
+   * @param limelightName {@link Limelight} name that was not found.
+   */
+  static synchronized void reportMissing(NetworkTableInstance instance, String limelightName)
+  {
+    String message = missingMessage(instance, limelightName);
+    DriverStation.reportError(message, false);
+    if (reportedAlert == null)
+    {
+      reportedAlert = new Alert(message, AlertType.kError);
+    }
+    reportedAlert.setText(message);
+    reportedAlert.set(true);
+  }
+
+  /**
+   * Describe a missing {@link Limelight}, listing the Limelight tables that do exist.
+   *
+   * @param instance      {@link NetworkTableInstance} that was searched.
+   * @param limelightName {@link Limelight} name that was not found.
+   * @return Error message.
+   */
+  static String missingMessage(NetworkTableInstance instance, String limelightName)
+  {
+    StringBuilder message = new StringBuilder();
+    message.append("Your limelight name \"");
+    message.append(limelightName);
+    message.append("\" doesn't exist on the network (no getpipe key).\nThese may be available <");
+    var foundNoLL = true;
+    var NTtables = instance.getTable("/").getSubTables().toArray();
+    for (Object element:NTtables)
+    {
+      var tableName = (String)element;
+      if (tableName.startsWith("limelight"))
+      {
+        foundNoLL = false;
+        message.append(tableName);
+        message.append(" ");
+      }
+    }
+
+    if (foundNoLL)
+    {
+      message.append("--none--");
+    }
+
+    message.append(">");
+    return message.toString();
+  }
+
+  /**
+   * Discovery state of a {@link Limelight}.
+   */
+  public enum State
+  {
+    /**
+     * Waiting for the {@link Limelight} to publish "getpipe".
+     */
+    SEARCHING,
+    /**
+     * The {@link Limelight} is on NetworkTables.
+     */
+    ATTACHED,
+    /**
+     * The {@link Limelight} did not attach before the timeout.
+     */
+    MISSING
+  }
+}
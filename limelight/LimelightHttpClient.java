@@ -0,0 +1,331 @@
+package limelight;
+
+
+import static limelight.structures.LimelightUtils.sanitizeName;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous client for the {@link Limelight} REST API on port 5807.
+ * <p>
+ * Requests run on a small pool of daemon threads owned by this client instead of the common ForkJoinPool, reuse
+ * keep-alive connections, time out, and are retried with exponential backoff on connection errors and server errors.
+ * At most {@link #MAX_IN_FLIGHT} requests are outstanding; further requests fail immediately instead of queueing
+ * behind a camera that stopped answering.
+ */
+public class LimelightHttpClient
+{
+
+  /**
+   * Port of the {@link Limelight} REST API.
+   */
+  public static final int      PORT                    = 5807;
+  /**
+   * Maximum number of outstanding requests.
+   */
+  public static final int      MAX_IN_FLIGHT           = 8;
+  /**
+   * Default connection timeout.
+   */
+  public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(1);
+  /**
+   * Default timeout of one request attempt.
+   */
+  public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(2);
+  /**
+   * Default number of retries after the first attempt.
+   */
+  public static final int      DEFAULT_RETRIES         = 2;
+  /**
+   * Default delay before the first retry; doubled for each further retry.
+   */
+  public static final Duration DEFAULT_BACKOFF         = Duration.ofMillis(100);
+
+  /**
+   * Base {@link URI} of the REST API, ending with "/".
+   */
+  private final URI                baseUri;
+  /**
+   * Pool running the requests and their callbacks.
+   */
+  private final ThreadPoolExecutor executor;
+  /**
+   * {@link HttpClient} sharing keep-alive connections between requests.
+   */
+  private final HttpClient         client;
+  /**
+   * Timeout of one request attempt.
+   */
+  private final Duration           requestTimeout;
+  /**
+   * Number of retries after the first attempt.
+   */
+  private final int                retries;
+  /**
+   * Delay before the first retry.
+   */
+  private final Duration           backoff;
+  /**
+   * Number of outstanding requests.
+   */
+  private final AtomicInteger      inFlight     = new AtomicInteger();
+  /**
+   * Number of requests started.
+   */
+  private final AtomicLong         requestCount = new AtomicLong();
+  /**
+   * Number of retried attempts.
+   */
+  private final AtomicLong         retryCount   = new AtomicLong();
+  /**
+   * Number of requests that failed after every attempt or were rejected.
+   */
+  private final AtomicLong         failureCount = new AtomicLong();
+
+  /**
+   * Create a {@link LimelightHttpClient} for a {@link Limelight} on the network, using the default timeouts and
+   * retries.
+   *
+   * @param limelightName {@link Limelight} name, resolved as "[name].local".
+   */
+  public LimelightHttpClient(String limelightName)
+  {
+    this(URI.create("http://" + sanitizeName(limelightName) + ".local:" + PORT + "/"));
+  }
+
+  /**
+   * Create a {@link LimelightHttpClient} for a base {@link URI}, using the default timeouts and retries. Use this to
+   * point the client at a local stub server.
+   *
+   * @param baseUri Base {@link URI} of the REST API.
+   */
+  public LimelightHttpClient(URI baseUri)
+  {
+    this(baseUri, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, DEFAULT_RETRIES, DEFAULT_BACKOFF);
+  }
+
+  /**
+   * Create a {@link LimelightHttpClient}.
+   *
+   * @param baseUri        Base {@link URI} of the REST API.
+   * @param connectTimeout Connection timeout.
+   * @param requestTimeout Timeout of one request attempt.
+   * @param retries        Number of retries after the first attempt.
+   * @param backoff        Delay before the first retry; doubled for each further retry.
+   */
+  public LimelightHttpClient(URI baseUri, Duration connectTimeout, Duration requestTimeout, int retries,
+                             Duration backoff)
+  {
+    String base = baseUri.toString();
+    this.baseUri = base.endsWith("/") ? baseUri : URI.create(base + "/");
+    this.requestTimeout = requestTimeout;
+    this.retries = retries;
+    this.backoff = backoff;
+    AtomicInteger threadCount = new AtomicInteger();
+    executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+      Thread thread = new Thread(runnable, "LimelightHttpClient-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.allowCoreThreadTimeOut(true);
+    client = HttpClient.newBuilder()
+                       .version(HttpClient.Version.HTTP_1_1)
+                       .connectTimeout(connectTimeout)
+                       .executor(executor)
+                       .build();
+  }
+
+  /**
+   * Take a snapshot, "capturesnapshot".
+   *
+   * @param snapshotName Snapshot name, or null or empty for a default name.
+   * @return Future completed with true if the {@link Limelight} accepted the request.
+   */
+  public CompletableFuture<Boolean> captureSnapshot(String snapshotName)
+  {
+    HttpRequest.Builder request = newRequest("capturesnapshot").GET();
+    if (snapshotName != null && !snapshotName.isEmpty())
+    {
+      request.header("snapname", snapshotName);
+    }
+    return send(request).thenApply(response -> response.statusCode() == 200);
+  }
+
+  /**
+   * Get the JSON results of the latest frame, "results".
+   *
+   * @return Future completed with the JSON results.
+   */
+  public CompletableFuture<String> getResults()
+  {
+    return sendForBody(newRequest("results").GET());
+  }
+
+  /**
+   * Get the status of the {@link Limelight}, "status".
+   *
+   * @return Future completed with the JSON status.
+   */
+  public CompletableFuture<String> getStatus()
+  {
+    return sendForBody(newRequest("status").GET());
+  }
+
+  /**
+   * Upload a pipeline, "upload-pipeline".
+   *
+   * @param pipelineJson  Pipeline in the JSON format exported by the {@link Limelight} web interface.
+   * @param pipelineIndex Pipeline slot to replace, or a negative value for the current pipeline.
+   * @return Future completed with true if the {@link Limelight} accepted the pipeline.
+   */
+  public CompletableFuture<Boolean> uploadPipeline(String pipelineJson, int pipelineIndex)
+  {
+    String path = pipelineIndex < 0 ? "upload-pipeline" : "upload-pipeline?index=" + pipelineIndex;
+    HttpRequest.Builder request = newRequest(path).header("Content-Type", "application/json")
+                                                  .POST(HttpRequest.BodyPublishers.ofString(pipelineJson));
+    return send(request).thenApply(response -> response.statusCode() == 200);
+  }
+
+  /**
+   * Start a request to the {@link Limelight}.
+   *
+   * @param path Path relative to the base {@link URI}.
+   * @return {@link HttpRequest.Builder} with the request timeout set.
+   */
+  public HttpRequest.Builder newRequest(String path)
+  {
+    return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(requestTimeout);
+  }
+
+  /**
+   * Send a request, retrying on connection errors and server errors.
+   *
+   * @param request Request to send, usually from {@link #newRequest(String)}.
+   * @return Future completed with the last response, or exceptionally if every attempt failed or too many requests
+   *     are outstanding.
+   */
+  public CompletableFuture<HttpResponse<String>> send(HttpRequest.Builder request)
+  {
+    requestCount.incrementAndGet();
+    if (inFlight.incrementAndGet() > MAX_IN_FLIGHT)
+    {
+      inFlight.decrementAndGet();
+      failureCount.incrementAndGet();
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("Too many outstanding requests to " + baseUri));
+    }
+    return attempt(request.build(), 0).whenComplete((response, error) -> {
+      inFlight.decrementAndGet();
+      if (error != null)
+      {
+        failureCount.incrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Send a request and return the body of a successful response.
+   *
+   * @param request Request to send.
+   * @return Future completed with the body, or exceptionally on a non-200 response.
+   */
+  private CompletableFuture<String> sendForBody(HttpRequest.Builder request)
+  {
+    return send(request).thenApply(response -> {
+      if (response.statusCode() != 200)
+      {
+        throw new CompletionException(new IllegalStateException(
+            "Bad LL Request " + response.uri() + ": " + response.statusCode()));
+      }
+      return response.body();
+    });
+  }
+
+  /**
+   * Run one attempt of a request and schedule the next one on failure.
+   *
+   * @param request Request to send.
+   * @param attempt Attempt number, 0 for the first.
+   * @return Future completed with the response of this or a later attempt.
+   */
+  private CompletableFuture<HttpResponse<String>> attempt(HttpRequest request, int attempt)
+  {
+    return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                 .handle((response, error) -> {
+                   boolean failed = error != null || response.statusCode() >= 500;
+                   if (!failed || attempt >= retries)
+                   {
+                     return error == null ? CompletableFuture.completedFuture(response)
+                                          : CompletableFuture.<HttpResponse<String>>failedFuture(error);
+                   }
+                   retryCount.incrementAndGet();
+                   Executor delayed = CompletableFuture.delayedExecutor(backoff.toMillis() << attempt,
+                                                                        TimeUnit.MILLISECONDS, executor);
+                   return CompletableFuture.supplyAsync(() -> request, delayed)
+                                           .thenCompose(retry -> attempt(retry, attempt + 1));
+                 })
+                 .thenCompose(future -> future);
+  }
+
+  /**
+   * Get the base {@link URI} of the REST API.
+   *
+   * @return Base {@link URI}.
+   */
+  public URI getBaseUri()
+  {
+    return baseUri;
+  }
+
+  /**
+   * Number of requests started.
+   *
+   * @return Request count.
+   */
+  public long getRequestCount()
+  {
+    return requestCount.get();
+  }
+
+  /**
+   * Number of retried attempts.
+   *
+   * @return Retry count.
+   */
+  public long getRetryCount()
+  {
+    return retryCount.get();
+  }
+
+  /**
+   * Number of requests that failed after every attempt or were rejected.
+   *
+   * @return Failure count.
+   */
+  public long getFailureCount()
+  {
+    return failureCount.get();
+  }
+
+  /**
+   * Number of outstanding requests.
+   *
+   * @return Outstanding request count.
+   */
+  public int getInFlight()
+  {
+    return inFlight.get();
+  }
+}
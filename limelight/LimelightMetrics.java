@@ -0,0 +1,515 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-camera counters and timers of the {@link Limelight} read paths: JSON results, raw fiducials, raw detections and
+ * the pose estimate of each bot pose entry.
+ * <p>
+ * Metrics are disabled by default; each instrumented call then costs a single volatile read. Once
+ * {@link #setEnabled(boolean) enabled}, every call records the decode time, bytes parsed, distinct frames consumed,
+ * age of the frame since NetworkTables received it and parse errors. {@link #startPublishing(double)} samples them
+ * into NetworkTables under "/LimelightMetrics/[name]" at a fixed rate, and {@link #toString()} formats them for a log.
+ * Counters are {@link LongAdder}s and maxima {@link AtomicLong}s, so the robot loop, NetworkTables listener threads
+ * and the publishing {@link Notifier} can record and sample concurrently.
+ */
+public class LimelightMetrics implements AutoCloseable
+{
+
+  /**
+   * Default publishing period in seconds.
+   */
+  public static final double DEFAULT_PERIOD_SECONDS = 0.5;
+
+  /**
+   * {@link Limelight} measured.
+   */
+  private final    Limelight              limelight;
+  /**
+   * "hb" entry, read when sampling to count the frames the {@link Limelight} published.
+   */
+  private final    NetworkTableEntry      heartbeat;
+  /**
+   * JSON results, {@link limelight.structures.LimelightData#getResults()}.
+   */
+  public final     Channel                results        = new Channel("results");
+  /**
+   * Raw fiducials, {@link limelight.structures.LimelightData#getRawFiducials()}.
+   */
+  public final     Channel                rawFiducials   = new Channel("rawFiducials");
+  /**
+   * Raw detections, {@link limelight.structures.LimelightData#getRawDetections()}.
+   */
+  public final     Channel                rawDetections  = new Channel("rawDetections");
+  /**
+   * Every {@link Channel}: results, raw fiducials, raw detections, then one per pose entry in creation order.
+   */
+  private final    List<Channel>          channels       = new CopyOnWriteArrayList<>(
+      List.of(results, rawFiducials, rawDetections));
+  /**
+   * Are calls recorded?
+   */
+  private volatile boolean                enabled        = false;
+  /**
+   * Heartbeat at the first sample, -1 before it.
+   */
+  private          double                 heartbeatStart = -1;
+  /**
+   * Heartbeat at the last sample.
+   */
+  private          double                 heartbeatLast  = -1;
+  /**
+   * {@link Notifier} publishing samples, null when not publishing.
+   */
+  private          Notifier               notifier;
+  /**
+   * Publisher of {@link #getFramesPublished()}.
+   */
+  private          DoublePublisher        framesPublished;
+  /**
+   * Table the samples are published under, null when not publishing.
+   */
+  private          NetworkTable           table;
+  /**
+   * Publisher of each {@link Channel}, in the order of {@link #channels()}.
+   */
+  private          DoubleArrayPublisher[] channelPublishers;
+
+  /**
+   * Create the {@link LimelightMetrics} of a {@link Limelight}, disabled.
+   *
+   * @param camera {@link Limelight} to measure.
+   */
+  public LimelightMetrics(Limelight camera)
+  {
+    limelight = camera;
+    heartbeat = camera.getNTTable().getEntry("hb");
+  }
+
+  /**
+   * Enable or disable recording. Counters keep their values while disabled.
+   *
+   * @param enable True to record calls.
+   * @return {@link LimelightMetrics} for chaining.
+   */
+  public LimelightMetrics setEnabled(boolean enable)
+  {
+    enabled = enable;
+    return this;
+  }
+
+  /**
+   * Are calls recorded?
+   *
+   * @return True when enabled.
+   */
+  public boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * Start timing a call.
+   *
+   * @return {@link System#nanoTime()}, or 0 when disabled.
+   */
+  public long start()
+  {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /**
+   * Get the {@link Channel} of {@link limelight.estimator.PoseEstimate#getPoseEstimate()} for one pose entry, creating
+   * it on first use. Each pose entry has its own channel so frames of different entries are counted separately.
+   *
+   * @param entryName Pose entry name, e.g. "botpose_orb_wpiblue".
+   * @return {@link Channel} of the pose entry.
+   */
+  public synchronized Channel poseEstimate(String entryName)
+  {
+    for (Channel channel : channels)
+    {
+      if (channel.name.equals(entryName))
+      {
+        return channel;
+      }
+    }
+    Channel channel = new Channel(entryName);
+    channels.add(channel);
+    return channel;
+  }
+
+  /**
+   * Every {@link Channel}, in publishing order.
+   *
+   * @return Results, raw fiducials, raw detections and the channel of each pose entry.
+   */
+  public Channel[] channels()
+  {
+    return channels.toArray(new Channel[0]);
+  }
+
+  /**
+   * Number of frames the {@link Limelight} published since the first sample, from its heartbeat. Compare with
+   * {@link Channel#getFrames()} to see how many frames the robot code skipped.
+   *
+   * @return Published frame count, 0 before two samples.
+   */
+  public synchronized long getFramesPublished()
+  {
+    return heartbeatStart < 0 ? 0 : (long) (heartbeatLast - heartbeatStart);
+  }
+
+  /**
+   * Read the heartbeat of the {@link Limelight}.
+   */
+  private synchronized void sampleHeartbeat()
+  {
+    double hb = heartbeat.getDouble(-1);
+    if (hb < 0)
+    {
+      return;
+    }
+    // A rebooted camera restarts its heartbeat, so restart the count with it.
+    if (heartbeatStart < 0 || hb < heartbeatLast)
+    {
+      heartbeatStart = hb;
+    }
+    heartbeatLast = hb;
+  }
+
+  /**
+   * Publish a sample of every {@link Channel} into NetworkTables at a fixed rate, on a {@link Notifier}. Each channel
+   * is a double array of [calls, decodes, frames, errors, bytes, mean decode us, max decode us, mean age ms, max
+   * age ms]; the maxima cover the time since the previous sample.
+   *
+   * @param periodSeconds Publishing period in seconds, e.g. {@link #DEFAULT_PERIOD_SECONDS}.
+   * @return {@link LimelightMetrics} for chaining.
+   */
+  public LimelightMetrics startPublishing(double periodSeconds)
+  {
+    stopPublishing();
+    synchronized (this)
+    {
+      table = limelight.getNTTable().getInstance().getTable("LimelightMetrics").getSubTable(limelight.limelightName);
+      channelPublishers = new DoubleArrayPublisher[0];
+      framesPublished = table.getDoubleTopic("framesPublished").publish();
+      notifier = new Notifier(this::publish);
+      notifier.setName("LimelightMetrics-" + limelight.limelightName);
+      notifier.startPeriodic(periodSeconds);
+    }
+    return this;
+  }
+
+  /**
+   * Publish one sample.
+   */
+  private synchronized void publish()
+  {
+    sampleHeartbeat();
+    Channel[] all = channels();
+    // Pose entry channels may be created after publishing started.
+    if (channelPublishers.length < all.length)
+    {
+      DoubleArrayPublisher[] publishers = Arrays.copyOf(channelPublishers, all.length);
+      for (int i = channelPublishers.length; i < all.length; i++)
+      {
+        publishers[i] = table.getDoubleArrayTopic(all[i].name).publish();
+      }
+      channelPublishers = publishers;
+    }
+    for (int i = 0; i < all.length; i++)
+    {
+      channelPublishers[i].set(all[i].sample());
+    }
+    framesPublished.set(getFramesPublished());
+  }
+
+  /**
+   * Stop publishing samples and release the publishers.
+   */
+  public void stopPublishing()
+  {
+    Notifier stopped;
+    synchronized (this)
+    {
+      stopped = notifier;
+      notifier = null;
+    }
+    // Close outside the lock; the notifier thread may be waiting on it in publish().
+    if (stopped != null)
+    {
+      stopped.close();
+    }
+    synchronized (this)
+    {
+      if (channelPublishers != null)
+      {
+        for (DoubleArrayPublisher publisher : channelPublishers)
+        {
+          publisher.close();
+        }
+        framesPublished.close();
+        channelPublishers = null;
+        framesPublished = null;
+        table = null;
+      }
+    }
+  }
+
+  /**
+   * Reset every counter.
+   */
+  public synchronized void reset()
+  {
+    for (Channel channel : channels())
+    {
+      channel.reset();
+    }
+    heartbeatStart = -1;
+    heartbeatLast = -1;
+  }
+
+  /**
+   * Format a sample of every counter for a log. The maxima are reset as by a published sample.
+   *
+   * @return Metrics of each {@link Channel}.
+   */
+  @Override
+  public synchronized String toString()
+  {
+    sampleHeartbeat();
+    StringBuilder str = new StringBuilder(limelight.limelightName).append(" framesPublished ")
+                                                                   .append(getFramesPublished());
+    for (Channel channel : channels())
+    {
+      double[] sample = channel.sample();
+      str.append("\n").append(channel.name)
+         .append(" calls ").append((long) sample[0])
+         .append(" decodes ").append((long) sample[1])
+         .append(" frames ").append((long) sample[2])
+         .append(" errors ").append((long) sample[3])
+         .append(" bytes ").append((long) sample[4])
+         .append(" decode us mean ").append(sample[5]).append(" max ").append(sample[6])
+         .append(" age ms mean ").append(sample[7]).append(" max ").append(sample[8]);
+    }
+    return str.toString();
+  }
+
+  /**
+   * Stop publishing.
+   */
+  @Override
+  public void close()
+  {
+    stopPublishing();
+  }
+
+  /**
+   * Counters and timers of one read path. Calls may come from the robot loop and the NetworkTables listener thread at
+   * the same time, so every counter is thread-safe and {@link #sample()} resets the maxima atomically.
+   */
+  public final class Channel
+  {
+
+    /**
+     * Channel name, the NetworkTables topic it is published on.
+     */
+    public final  String     name;
+    /**
+     * Number of calls.
+     */
+    private final LongAdder  calls           = new LongAdder();
+    /**
+     * Number of decodes.
+     */
+    private final LongAdder  decodes         = new LongAdder();
+    /**
+     * Number of distinct frames consumed.
+     */
+    private final LongAdder  frames          = new LongAdder();
+    /**
+     * Number of decode errors.
+     */
+    private final LongAdder  errors          = new LongAdder();
+    /**
+     * Number of bytes parsed.
+     */
+    private final LongAdder  bytes           = new LongAdder();
+    /**
+     * Total decode time in nanoseconds.
+     */
+    private final LongAdder  decodeNanos     = new LongAdder();
+    /**
+     * Longest decode time since the last sample, in nanoseconds.
+     */
+    private final AtomicLong maxDecodeNanos  = new AtomicLong();
+    /**
+     * Total frame age at consume time in microseconds.
+     */
+    private final LongAdder  ageMicros       = new LongAdder();
+    /**
+     * Largest frame age since the last sample, in microseconds.
+     */
+    private final AtomicLong maxAgeMicros    = new AtomicLong();
+    /**
+     * NetworkTables receive time of the last consumed frame.
+     */
+    private final AtomicLong lastFrameMicros = new AtomicLong(-1);
+
+    /**
+     * Create a {@link Channel}.
+     *
+     * @param name Channel name.
+     */
+    private Channel(String name)
+    {
+      this.name = name;
+    }
+
+    /**
+     * Count a call to the read path.
+     */
+    public void call()
+    {
+      if (enabled)
+      {
+        calls.increment();
+      }
+    }
+
+    /**
+     * Record a decode.
+     *
+     * @param startNanos      Value of {@link LimelightMetrics#start()} before decoding; ignored if 0.
+     * @param byteCount       Bytes parsed, characters for JSON and 8 per double for arrays.
+     * @param ntReceiveMicros NetworkTables receive time of the decoded frame in microseconds.
+     */
+    public void decoded(long startNanos, int byteCount, long ntReceiveMicros)
+    {
+      if (!enabled || startNanos == 0)
+      {
+        return;
+      }
+      long elapsed = System.nanoTime() - startNanos;
+      decodes.increment();
+      bytes.add(byteCount);
+      decodeNanos.add(elapsed);
+      maxDecodeNanos.accumulateAndGet(elapsed, Math::max);
+      // Only the thread swapping in a new receive time counts the frame.
+      if (lastFrameMicros.getAndSet(ntReceiveMicros) != ntReceiveMicros)
+      {
+        long age = NetworkTablesJNI.now() - ntReceiveMicros;
+        frames.increment();
+        ageMicros.add(age);
+        maxAgeMicros.accumulateAndGet(age, Math::max);
+      }
+    }
+
+    /**
+     * Count a decode error.
+     */
+    public void error()
+    {
+      if (enabled)
+      {
+        errors.increment();
+      }
+    }
+
+    /**
+     * Number of calls.
+     *
+     * @return Call count.
+     */
+    public long getCalls()
+    {
+      return calls.sum();
+    }
+
+    /**
+     * Number of decodes; calls minus decodes were answered from a cache.
+     *
+     * @return Decode count.
+     */
+    public long getDecodes()
+    {
+      return decodes.sum();
+    }
+
+    /**
+     * Number of distinct frames consumed.
+     *
+     * @return Frame count.
+     */
+    public long getFrames()
+    {
+      return frames.sum();
+    }
+
+    /**
+     * Number of decode errors.
+     *
+     * @return Error count.
+     */
+    public long getErrors()
+    {
+      return errors.sum();
+    }
+
+    /**
+     * Number of bytes parsed.
+     *
+     * @return Byte count.
+     */
+    public long getBytes()
+    {
+      return bytes.sum();
+    }
+
+    /**
+     * Sample the counters and reset the maxima. A decode racing with the sample lands in this sample or the next,
+     * never in neither.
+     *
+     * @return [calls, decodes, frames, errors, bytes, mean decode us, max decode us, mean age ms, max age ms].
+     */
+    double[] sample()
+    {
+      long decodeCount = decodes.sum();
+      long frameCount  = frames.sum();
+      return new double[]{calls.sum(), decodeCount, frameCount, errors.sum(), bytes.sum(),
+                          decodeCount > 0 ? decodeNanos.sum() / 1_000.0 / decodeCount : 0,
+                          maxDecodeNanos.getAndSet(0) / 1_000.0,
+                          frameCount > 0 ? ageMicros.sum() / 1_000.0 / frameCount : 0,
+                          maxAgeMicros.getAndSet(0) / 1_000.0};
+    }
+
+    /**
+     * Reset every counter.
+     */
+    void reset()
+    {
+      calls.reset();
+      decodes.reset();
+      frames.reset();
+      errors.reset();
+      bytes.reset();
+      decodeNanos.reset();
+      maxDecodeNanos.set(0);
+      ageMicros.reset();
+      maxAgeMicros.set(0);
+      lastFrameMicros.set(-1);
+    }
+  }
+}
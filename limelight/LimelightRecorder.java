@@ -0,0 +1,81 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.util.datalog.DataLog;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the raw frames of one or more {@link Limelight}s to a WPILib {@link DataLog} for debugging after a match.
+ * <p>
+ * Every value of the "json", "rawfiducials", "rawdetections", "botpose*" and "hb" entries is logged with its NetworkTables
+ * timestamp by the NetworkTables entry data logger, which runs on the NetworkTables thread and writes into the
+ * {@link DataLog} buffers. The robot loop does no formatting or copying, so recording costs it nothing.
+ * <pre>{@code
+ * DataLogManager.start();
+ * new LimelightRecorder(DataLogManager.getLog()).record(limelight);
+ * }</pre>
+ * Entries are named "NT:/[name]/[key]" in the log, as {@link edu.wpi.first.wpilibj.DataLogManager} names them, so
+ * AdvantageScope reads them like any other NetworkTables log.
+ */
+public class LimelightRecorder implements AutoCloseable
+{
+
+  /**
+   * {@link Limelight} entry prefixes recorded; "botpose" covers every "botpose_*" entry, and "hb" shows the frames the
+   * {@link Limelight} processed, as its {@link LimelightWatchdog} saw them.
+   */
+  public static final String[] RECORDED_KEYS = {"json", "rawfiducials", "rawdetections", "botpose", "hb"};
+
+  /**
+   * {@link DataLog} to write to.
+   */
+  private final DataLog       log;
+  /**
+   * Entry data logger handles.
+   */
+  private final List<Integer> handles = new ArrayList<>();
+
+  /**
+   * Create a {@link LimelightRecorder} writing to a {@link DataLog}.
+   *
+   * @param log {@link DataLog} to write to, e.g. {@code DataLogManager.getLog()}.
+   */
+  public LimelightRecorder(DataLog log)
+  {
+    this.log = log;
+  }
+
+  /**
+   * Start recording a {@link Limelight}.
+   *
+   * @param camera {@link Limelight} to record.
+   * @return {@link LimelightRecorder} for chaining.
+   */
+  public synchronized LimelightRecorder record(Limelight camera)
+  {
+    NetworkTable         table    = camera.getNTTable();
+    NetworkTableInstance instance = table.getInstance();
+    for (String key : RECORDED_KEYS)
+    {
+      String prefix = table.getPath() + "/" + key;
+      handles.add(instance.startEntryDataLog(log, prefix, "NT:" + prefix));
+    }
+    return this;
+  }
+
+  /**
+   * Stop recording every {@link Limelight}. The {@link DataLog} is left open.
+   */
+  @Override
+  public synchronized void close()
+  {
+    for (int handle : handles)
+    {
+      NetworkTableInstance.stopEntryDataLog(handle);
+    }
+    handles.clear();
+  }
+}
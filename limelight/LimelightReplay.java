@@ -0,0 +1,503 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.Publisher;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays recorded {@link Limelight} NetworkTables traffic from a WPILib DataLog, such as one written by
+ * {@link LimelightRecorder} or DataLogManager, into a private {@link NetworkTableInstance}.
+ * <p>
+ * A {@link Limelight} constructed with {@link #getInstance()} then runs unchanged on recorded match traffic, which
+ * makes offline benchmarks and regression tests possible without a camera. Every value is published with its
+ * recorded timestamp, and publishers keep duplicates so a repeated value is still seen as a new frame. Capture
+ * timestamps are still converted by the {@link LimelightClockSync} of the replaying process, whose FPGA offset is
+ * sampled live, so they are not guaranteed to match between runs.
+ * <pre>{@code
+ * LimelightReplay replay = new LimelightReplay("match.wpilog", "limelight");
+ * Limelight limelight = new Limelight("limelight", replay.getInstance());
+ * while (replay.step())
+ * {
+ *   limelight.getData().getResults();
+ * }
+ * }</pre>
+ * Frames can be stepped one at a time, played up to a log time, or played on a background thread at the original
+ * timing, at any speed multiple, or as fast as possible. Recorded timestamps are not on the local NetworkTables clock,
+ * so replayed {@link Limelight}s need {@code limelight.getWatchdog().setEnabled(false)}, or the
+ * {@link LimelightWatchdog} keeps the getters empty.
+ */
+public class LimelightReplay implements AutoCloseable
+{
+
+  /**
+   * Prefix of NetworkTables entries in a DataLog.
+   */
+  public static final String NT_PREFIX = "NT:";
+
+  /**
+   * {@link NetworkTableInstance} frames are published into.
+   */
+  private final    NetworkTableInstance instance;
+  /**
+   * Name of each replayed topic.
+   */
+  private final    List<String>         topicNames = new ArrayList<>();
+  /**
+   * DataLog entry type of each replayed topic.
+   */
+  private final    List<String>         topicTypes = new ArrayList<>();
+  /**
+   * Tables that did not record "getpipe" and get it published by the replay.
+   */
+  private final    Set<String>          announced  = new LinkedHashSet<>();
+  /**
+   * Publisher of each replayed topic, in {@link #topicNames} order, followed by the "getpipe" of each
+   * {@link #announced} table.
+   */
+  private final    List<Publisher>      publishers = new ArrayList<>();
+  /**
+   * Log timestamp of each frame in microseconds, in log order.
+   */
+  private final    long[]               timestamps;
+  /**
+   * Index in {@link #publishers} of each frame.
+   */
+  private final    int[]                topics;
+  /**
+   * Value of each frame, a double[], Double or String.
+   */
+  private final    Object[]             values;
+  /**
+   * Index of the next frame to publish.
+   */
+  private volatile int                  next       = 0;
+  /**
+   * Background playback thread, null when not playing.
+   */
+  private          Thread               player;
+
+  /**
+   * Load the {@link Limelight} traffic of a DataLog into a new private {@link NetworkTableInstance}.
+   *
+   * @param logPath        Path of the DataLog file.
+   * @param limelightNames Names of the {@link Limelight}s to replay; empty for every table starting with "limelight".
+   * @throws IOException If the file cannot be read or is not a DataLog.
+   */
+  public LimelightReplay(String logPath, String... limelightNames) throws IOException
+  {
+    this(logPath, NetworkTableInstance.create(), limelightNames);
+  }
+
+  /**
+   * Load the {@link Limelight} traffic of a DataLog.
+   *
+   * @param logPath        Path of the DataLog file.
+   * @param instance       {@link NetworkTableInstance} to publish into; should not be the default instance.
+   * @param limelightNames Names of the {@link Limelight}s to replay; empty for every table starting with "limelight".
+   * @throws IOException If the file cannot be read or is not a DataLog.
+   */
+  public LimelightReplay(String logPath, NetworkTableInstance instance, String... limelightNames) throws IOException
+  {
+    this.instance = instance;
+    DataLogReader reader = new DataLogReader(logPath);
+    if (!reader.isValid())
+    {
+      throw new IOException("Not a DataLog: " + logPath);
+    }
+
+    Set<String>           names       = Set.of(limelightNames);
+    Map<Integer, Integer> entryTopics = new HashMap<>();
+    Map<Integer, String>  entryTypes  = new HashMap<>();
+    Map<String, Integer>  topicIndex  = new LinkedHashMap<>();
+    List<Long>            frameTimes  = new ArrayList<>();
+    List<Integer>         frameTopics = new ArrayList<>();
+    List<Object>          frameValues = new ArrayList<>();
+    for (DataLogRecord record : reader)
+    {
+      if (record.isStart())
+      {
+        DataLogRecord.StartRecordData start = record.getStartData();
+        String                        topic = topicName(start.name, names);
+        if (topic != null && isSupported(start.type))
+        {
+          Integer index = topicIndex.get(topic);
+          if (index == null)
+          {
+            index = topicNames.size();
+            topicIndex.put(topic, index);
+            topicNames.add(topic);
+            topicTypes.add(start.type);
+          }
+          entryTopics.put(start.entry, index);
+          entryTypes.put(start.entry, start.type);
+        }
+        continue;
+      }
+      if (record.isControl())
+      {
+        continue;
+      }
+      Integer topic = entryTopics.get(record.getEntry());
+      if (topic == null)
+      {
+        continue;
+      }
+      frameTimes.add(record.getTimestamp());
+      frameTopics.add(topic);
+      frameValues.add(readValue(record, entryTypes.get(record.getEntry())));
+    }
+
+    timestamps = new long[frameTimes.size()];
+    topics = new int[frameTimes.size()];
+    values = frameValues.toArray();
+    for (int i = 0; i < timestamps.length; i++)
+    {
+      timestamps[i] = frameTimes.get(i);
+      topics[i] = frameTopics.get(i);
+    }
+    findUnannouncedTables(topicIndex.keySet());
+    createPublishers();
+  }
+
+  /**
+   * Map a DataLog entry name to the NetworkTables topic to replay it on.
+   *
+   * @param entryName DataLog entry name, e.g. "NT:/limelight/json".
+   * @param names     {@link Limelight} names to replay; empty for every "limelight*" table.
+   * @return Topic name, or null if the entry is not replayed.
+   */
+  private static String topicName(String entryName, Set<String> names)
+  {
+    if (!entryName.startsWith(NT_PREFIX + "/"))
+    {
+      return null;
+    }
+    String topic = entryName.substring(NT_PREFIX.length());
+    int    slash = topic.indexOf('/', 1);
+    if (slash < 0)
+    {
+      return null;
+    }
+    String table = topic.substring(1, slash);
+    return (names.isEmpty() ? table.startsWith("limelight") : names.contains(table)) ? topic : null;
+  }
+
+  /**
+   * Is a DataLog entry type replayed?
+   *
+   * @param type DataLog entry type.
+   * @return True for "double[]", "double" and "string".
+   */
+  private static boolean isSupported(String type)
+  {
+    return type.equals("double[]") || type.equals("double") || type.equals("string");
+  }
+
+  /**
+   * Create the publisher of a replayed topic.
+   *
+   * @param topic Topic name.
+   * @param type  DataLog entry type.
+   * @return Publisher for the topic.
+   */
+  private Publisher publish(String topic, String type)
+  {
+    PubSubOption keep = PubSubOption.keepDuplicates(true);
+    switch (type)
+    {
+      case "double[]":
+        return instance.getDoubleArrayTopic(topic).publish(keep);
+      case "double":
+        return instance.getDoubleTopic(topic).publish(keep);
+      default:
+        return instance.getStringTopic(topic).publish(keep);
+    }
+  }
+
+  /**
+   * Read the value of a DataLog record.
+   *
+   * @param record DataLog record.
+   * @param type   DataLog entry type.
+   * @return double[], Double or String.
+   */
+  private static Object readValue(DataLogRecord record, String type)
+  {
+    switch (type)
+    {
+      case "double[]":
+        return record.getDoubleArray();
+      case "double":
+        return record.getDouble();
+      default:
+        return record.getString();
+    }
+  }
+
+  /**
+   * Find every replayed table that did not record "getpipe", so the replay publishes it and
+   * {@link LimelightDiscovery} attaches.
+   *
+   * @param replayedTopics Replayed topic names.
+   */
+  private void findUnannouncedTables(Set<String> replayedTopics)
+  {
+    for (String topic : replayedTopics)
+    {
+      String table = topic.substring(0, topic.indexOf('/', 1));
+      if (!replayedTopics.contains(table + "/getpipe"))
+      {
+        announced.add(table);
+      }
+    }
+  }
+
+  /**
+   * Create the publisher of every replayed topic and publish "getpipe" for every {@link #announced} table.
+   */
+  private void createPublishers()
+  {
+    for (int i = 0; i < topicNames.size(); i++)
+    {
+      publishers.add(publish(topicNames.get(i), topicTypes.get(i)));
+    }
+    for (String table : announced)
+    {
+      DoublePublisher publisher = instance.getDoubleTopic(table + "/getpipe").publish();
+      publisher.set(0);
+      publishers.add(publisher);
+    }
+  }
+
+  /**
+   * Close every publisher.
+   */
+  private void closePublishers()
+  {
+    for (Publisher publisher : publishers)
+    {
+      publisher.close();
+    }
+    publishers.clear();
+  }
+
+  /**
+   * Publish one frame with its recorded timestamp.
+   *
+   * @param frame Frame index.
+   */
+  private void publishFrame(int frame)
+  {
+    Publisher publisher = publishers.get(topics[frame]);
+    Object    value     = values[frame];
+    if (value instanceof double[])
+    {
+      ((DoubleArrayPublisher) publisher).set((double[]) value, timestamps[frame]);
+    } else if (value instanceof Double)
+    {
+      ((DoublePublisher) publisher).set((Double) value, timestamps[frame]);
+    } else
+    {
+      ((StringPublisher) publisher).set((String) value, timestamps[frame]);
+    }
+  }
+
+  /**
+   * Publish the next frame.
+   *
+   * @return False if every frame was already published.
+   */
+  public synchronized boolean step()
+  {
+    if (next >= timestamps.length)
+    {
+      return false;
+    }
+    publishFrame(next++);
+    return true;
+  }
+
+  /**
+   * Publish every frame recorded at or before a log time.
+   *
+   * @param logSeconds Log time in seconds.
+   * @return Number of frames published.
+   */
+  public synchronized int playUntil(double logSeconds)
+  {
+    long until = (long) (logSeconds * 1_000_000);
+    int  count = 0;
+    while (next < timestamps.length && timestamps[next] <= until)
+    {
+      publishFrame(next++);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Play the remaining frames on a background thread.
+   *
+   * @param speed 1 for the original timing, N for N times faster, or {@link Double#POSITIVE_INFINITY} for as fast as
+   *              possible.
+   * @return {@link LimelightReplay} for chaining.
+   */
+  public LimelightReplay start(double speed)
+  {
+    // stop() joins the player, which needs the monitor to publish, so it must run without holding it.
+    while (true)
+    {
+      stop();
+      synchronized (this)
+      {
+        // Another start() may have won the race since stop(); stop that player too.
+        if (player == null)
+        {
+          player = new Thread(() -> play(speed), "LimelightReplay");
+          player.setDaemon(true);
+          player.start();
+          return this;
+        }
+      }
+    }
+  }
+
+  /**
+   * Publish the remaining frames, sleeping to keep their recorded spacing divided by the speed.
+   *
+   * @param speed Speed multiple.
+   */
+  private void play(double speed)
+  {
+    if (next >= timestamps.length)
+    {
+      return;
+    }
+    long logStart  = timestamps[next];
+    long wallStart = System.nanoTime();
+    while (!Thread.currentThread().isInterrupted())
+    {
+      int frame;
+      synchronized (this)
+      {
+        if (next >= timestamps.length)
+        {
+          return;
+        }
+        frame = next;
+      }
+      if (Double.isFinite(speed))
+      {
+        long dueNanos  = wallStart + (long) ((timestamps[frame] - logStart) * 1_000 / speed);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0)
+        {
+          try
+          {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+          } catch (InterruptedException e)
+          {
+            return;
+          }
+        }
+      }
+      step();
+    }
+  }
+
+  /**
+   * Stop background playback. The next frame stays queued.
+   */
+  public void stop()
+  {
+    Thread thread;
+    synchronized (this)
+    {
+      thread = player;
+      player = null;
+    }
+    if (thread != null)
+    {
+      thread.interrupt();
+      try
+      {
+        thread.join();
+      } catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Go back to the first frame. The publishers are recreated so the first frames, whose timestamps are older than the
+   * last published values, are not taken for stale updates of the same publishers.
+   */
+  public void rewind()
+  {
+    stop();
+    synchronized (this)
+    {
+      closePublishers();
+      createPublishers();
+      next = 0;
+    }
+  }
+
+  /**
+   * Have all frames been published?
+   *
+   * @return True when replay finished.
+   */
+  public boolean isFinished()
+  {
+    return next >= timestamps.length;
+  }
+
+  /**
+   * Number of frames loaded from the log.
+   *
+   * @return Frame count.
+   */
+  public int getFrameCount()
+  {
+    return timestamps.length;
+  }
+
+  /**
+   * Get the {@link NetworkTableInstance} frames are published into, to construct {@link Limelight}s on.
+   *
+   * @return Replay {@link NetworkTableInstance}.
+   */
+  public NetworkTableInstance getInstance()
+  {
+    return instance;
+  }
+
+  /**
+   * Stop playback and release the publishers. The {@link NetworkTableInstance} is not closed.
+   */
+  @Override
+  public void close()
+  {
+    stop();
+    synchronized (this)
+    {
+      closePublishers();
+    }
+  }
+}
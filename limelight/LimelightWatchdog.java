@@ -0,0 +1,311 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableType;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.wpilibj.Alert;
+import edu.wpi.first.wpilibj.Alert.AlertType;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.EnumSet;
+
+/**
+ * Watchdog of the {@link Limelight} heartbeat, "hb", which the camera increments once per processed frame.
+ * <p>
+ * A NetworkTables listener records the update time of every heartbeat that moved; the first value seen only sets the
+ * baseline, since it may be left over from before a restart. A camera whose heartbeat stopped moving for
+ * {@link #getStaleSeconds()} is {@link State#STALE}, for example while its pipeline is frozen, and one that stopped for
+ * {@link #getDisconnectedSeconds()} or never moved is {@link State#DISCONNECTED}. The pose, results and target getters
+ * return empty unless the watchdog is {@link State#CONNECTED}, so the last frame of a frozen or rebooting camera never
+ * reaches a pose estimator. {@link #isFresh()} only reads volatile fields and the NetworkTables clock, so the getters
+ * take no lock. The {@link Alert} is not thread-safe, so state change alerts and warnings are raised lazily on the
+ * robot thread by {@link #isFresh()} and {@link #getState()}, and not at all while the watchdog is
+ * {@link #setEnabled(boolean) disabled}.
+ * <p>
+ * Heartbeat update times are compared with the local NetworkTables clock, so values published with recorded
+ * timestamps, as by {@link LimelightReplay}, need the watchdog {@link #setEnabled(boolean) disabled}.
+ */
+public class LimelightWatchdog implements AutoCloseable
+{
+
+  /**
+   * Default time without heartbeat progress before the {@link Limelight} is {@link State#STALE}.
+   */
+  public static final double DEFAULT_STALE_SECONDS        = 0.25;
+  /**
+   * Default time without heartbeat progress before the {@link Limelight} is {@link State#DISCONNECTED}.
+   */
+  public static final double DEFAULT_DISCONNECTED_SECONDS = 1.0;
+
+  /**
+   * {@link Limelight} name.
+   */
+  private final    String               limelightName;
+  /**
+   * {@link NetworkTableInstance} the listener is registered on.
+   */
+  private final    NetworkTableInstance instance;
+  /**
+   * "hb" entry the listener is registered on.
+   */
+  private final    NetworkTableEntry    heartbeat;
+  /**
+   * Handle of the "hb" listener.
+   */
+  private final    int                  listenerHandle;
+  /**
+   * Alert raised while the {@link Limelight} is not {@link State#CONNECTED}.
+   */
+  private final    Alert                alert;
+  /**
+   * Time without heartbeat progress before {@link State#STALE}, in microseconds.
+   */
+  private volatile long                 staleMicros;
+  /**
+   * Time without heartbeat progress before {@link State#DISCONNECTED}, in microseconds.
+   */
+  private volatile long                 disconnectedMicros;
+  /**
+   * Do the getters of the {@link Limelight} check the watchdog?
+   */
+  private volatile boolean              enabled            = true;
+  /**
+   * NetworkTables update time of the last heartbeat that moved, 0 if none.
+   */
+  private volatile long                 lastProgressMicros = 0;
+  /**
+   * Number of times the heartbeat went backwards, as it does when the {@link Limelight} reboots. Only written by the
+   * listener thread.
+   */
+  private volatile long                 rebootCount        = 0;
+  /**
+   * Last heartbeat value seen, NaN before the first. Only used by the listener thread.
+   */
+  private          double               lastHeartbeat      = Double.NaN;
+  /**
+   * {@link State} last alerted. Only used by the robot thread.
+   */
+  private          State                alertedState       = State.DISCONNECTED;
+
+  /**
+   * Start watching the heartbeat of a {@link Limelight} with the default timeouts.
+   *
+   * @param limelightTable {@link NetworkTable} of the {@link Limelight}.
+   * @param limelightName  {@link Limelight} name.
+   */
+  public LimelightWatchdog(NetworkTable limelightTable, String limelightName)
+  {
+    this.limelightName = limelightName;
+    instance = limelightTable.getInstance();
+    heartbeat = limelightTable.getEntry("hb");
+    alert = new Alert("Limelight \"" + limelightName + "\" stopped sending frames", AlertType.kWarning);
+    setTimeouts(DEFAULT_STALE_SECONDS, DEFAULT_DISCONNECTED_SECONDS);
+    listenerHandle = instance.addListener(heartbeat,
+                                          EnumSet.of(NetworkTableEvent.Kind.kImmediate,
+                                                     NetworkTableEvent.Kind.kValueAll),
+                                          event -> heartbeatReceived(event.valueData.value));
+  }
+
+  /**
+   * Record a heartbeat value on the listener thread.
+   *
+   * @param value Heartbeat value.
+   */
+  private void heartbeatReceived(NetworkTableValue value)
+  {
+    if (value.getType() != NetworkTableType.kDouble)
+    {
+      return;
+    }
+    double hb = value.getDouble();
+    if (Double.isNaN(lastHeartbeat))
+    {
+      lastHeartbeat = hb;
+      return;
+    }
+    if (hb != lastHeartbeat)
+    {
+      if (hb < lastHeartbeat)
+      {
+        rebootCount++;
+      }
+      lastHeartbeat = hb;
+      lastProgressMicros = value.getTime();
+    }
+  }
+
+  /**
+   * Raise or clear the alert when the {@link State} changed, on the robot thread. Nothing is alerted while disabled.
+   *
+   * @param state Current {@link State}.
+   * @return The same {@link State}.
+   */
+  private State alert(State state)
+  {
+    if (enabled && state != alertedState)
+    {
+      alert.set(state != State.CONNECTED);
+      if (alertedState == State.CONNECTED)
+      {
+        DriverStation.reportWarning("Limelight \"" + limelightName + "\" is " + state, false);
+      }
+      alertedState = state;
+    }
+    return state;
+  }
+
+  /**
+   * Set the timeouts. The stale timeout should cover a few frames at the slowest pipeline frame rate.
+   *
+   * @param staleSeconds        Time without heartbeat progress before {@link State#STALE}.
+   * @param disconnectedSeconds Time without heartbeat progress before {@link State#DISCONNECTED}.
+   * @return {@link LimelightWatchdog} for chaining.
+   */
+  public LimelightWatchdog setTimeouts(double staleSeconds, double disconnectedSeconds)
+  {
+    staleMicros = (long) (staleSeconds * 1_000_000);
+    disconnectedMicros = (long) (Math.max(staleSeconds, disconnectedSeconds) * 1_000_000);
+    return this;
+  }
+
+  /**
+   * Enable or disable the check in the {@link Limelight} getters, e.g. for a {@link LimelightReplay}. The heartbeat
+   * is tracked and {@link #getState()} reported either way, but disabling clears the alert and raises no more. Call
+   * from the robot thread.
+   *
+   * @param enable True to return empty from the getters unless {@link State#CONNECTED}.
+   * @return {@link LimelightWatchdog} for chaining.
+   */
+  public LimelightWatchdog setEnabled(boolean enable)
+  {
+    enabled = enable;
+    if (!enable)
+    {
+      alert.set(false);
+      alertedState = State.DISCONNECTED;
+    }
+    return this;
+  }
+
+  /**
+   * Get the {@link State} from the time since the heartbeat last moved, raising or clearing the alert if it changed.
+   * Call from the robot thread.
+   *
+   * @return Current {@link State}.
+   */
+  public State getState()
+  {
+    return alert(readState());
+  }
+
+  /**
+   * Read the {@link State} from the time since the heartbeat last moved, without alerting.
+   *
+   * @return Current {@link State}.
+   */
+  private State readState()
+  {
+    long progress = lastProgressMicros;
+    long elapsed  = NetworkTablesJNI.now() - progress;
+    if (progress == 0 || elapsed > disconnectedMicros)
+    {
+      return State.DISCONNECTED;
+    }
+    return elapsed > staleMicros ? State.STALE : State.CONNECTED;
+  }
+
+  /**
+   * Is the {@link Limelight} producing frames?
+   *
+   * @return True if {@link #getState()} is {@link State#CONNECTED}.
+   */
+  public boolean isConnected()
+  {
+    return getState() == State.CONNECTED;
+  }
+
+  /**
+   * May the getters of the {@link Limelight} return data? Lock-free, for the getters' hot path; raises or clears the
+   * alert if the {@link State} changed. Call from the robot thread.
+   *
+   * @return True if {@link #isConnected()} or the watchdog is disabled.
+   */
+  public boolean isFresh()
+  {
+    return !enabled || getState() == State.CONNECTED;
+  }
+
+  /**
+   * Time since the heartbeat last moved.
+   *
+   * @return Seconds since the last heartbeat progress, infinite if never.
+   */
+  public double getSecondsSinceProgress()
+  {
+    long progress = lastProgressMicros;
+    return progress == 0 ? Double.POSITIVE_INFINITY : (NetworkTablesJNI.now() - progress) / 1_000_000.0;
+  }
+
+  /**
+   * Number of times the heartbeat went backwards, as it does when the {@link Limelight} reboots.
+   *
+   * @return Reboot count.
+   */
+  public long getRebootCount()
+  {
+    return rebootCount;
+  }
+
+  /**
+   * Time without heartbeat progress before {@link State#STALE}.
+   *
+   * @return Stale timeout in seconds.
+   */
+  public double getStaleSeconds()
+  {
+    return staleMicros / 1_000_000.0;
+  }
+
+  /**
+   * Time without heartbeat progress before {@link State#DISCONNECTED}.
+   *
+   * @return Disconnected timeout in seconds.
+   */
+  public double getDisconnectedSeconds()
+  {
+    return disconnectedMicros / 1_000_000.0;
+  }
+
+  /**
+   * Stop watching the heartbeat and clear the alert.
+   */
+  @Override
+  public void close()
+  {
+    instance.removeListener(listenerHandle);
+    alert.set(false);
+  }
+
+  /**
+   * Heartbeat state of a {@link Limelight}.
+   */
+  public enum State
+  {
+    /**
+     * The heartbeat moved within the stale timeout.
+     */
+    CONNECTED,
+    /**
+     * The heartbeat stopped for longer than the stale timeout; the last frame is out of date.
+     */
+    STALE,
+    /**
+     * The heartbeat stopped for longer than the disconnected timeout, or never moved.
+     */
+    DISCONNECTED
+  }
+}
@@ -0,0 +1,184 @@
+package limelight;
+
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Low-latency publisher of the robot orientation used by a {@link Limelight} for MegaTag2.
+ * <p>
+ * MegaTag2 is only as good as the "robot_orientation_set" value the camera has when it solves. Values are primitive
+ * degrees written into a reused array, so publishing does not allocate, and the publisher can be driven from a
+ * {@link Notifier} independent of the robot loop with {@link #startPeriodic(DoubleSupplier, DoubleSupplier, double)}.
+ * <p>
+ * NetworkTables 4 limits how fast a value reaches the camera. The robot is the server, and a server sends a topic at
+ * the period the client's subscription asked for; the publisher's own send period does not speed that up, and ntcore
+ * clamps periods below 5 ms anyway. Setting the orientation faster than the camera's subscription only replaces the
+ * unsent value. {@link #setFlushOnSet(boolean)} flushes the {@link NetworkTableInstance} after each value to send it
+ * right away, at the cost of flushing every other pending value too; ntcore rate-limits flushes, so it is safe to
+ * call at the {@link Notifier} rate.
+ */
+public class RobotOrientationPublisher implements AutoCloseable
+{
+
+  /**
+   * Default {@link Notifier} period, 100 Hz.
+   */
+  public static final double DEFAULT_PERIOD_SECONDS = 0.01;
+
+  /**
+   * {@link NetworkTableInstance} of the {@link Limelight}, flushed after each value when enabled.
+   */
+  private final NetworkTableInstance ntInstance;
+  /**
+   * "robot_orientation_set" publisher.
+   */
+  private final DoubleArrayPublisher publisher;
+  /**
+   * Reused orientation array [yaw, yawRate, pitch, pitchRate, roll, rollRate].
+   */
+  private final double[]             orientation  = new double[6];
+  /**
+   * Guards {@link #notifier}; separate from the lock of {@link #set} so stopping never waits on a running callback
+   * while holding it.
+   */
+  private final Object               notifierLock = new Object();
+  /**
+   * {@link Notifier} publishing periodically, null when not running.
+   */
+  private       Notifier             notifier;
+  /**
+   * Number of orientations published.
+   */
+  private       long                 publishCount = 0;
+  /**
+   * Flush the {@link NetworkTableInstance} after each value?
+   */
+  private       boolean              flushOnSet   = false;
+
+  /**
+   * Create a {@link RobotOrientationPublisher} for a {@link Limelight}.
+   *
+   * @param camera {@link Limelight} to publish the orientation to.
+   */
+  public RobotOrientationPublisher(Limelight camera)
+  {
+    ntInstance = camera.getNTTable().getInstance();
+    publisher = camera.getNTTable().getDoubleArrayTopic("robot_orientation_set").publish();
+  }
+
+  /**
+   * Flush the {@link NetworkTableInstance} after each value so it is sent right away instead of at the camera's
+   * subscription period. Flushing sends every pending value of the instance, and ntcore rate-limits it.
+   *
+   * @param flush True to flush after each value.
+   * @return {@link RobotOrientationPublisher} for chaining.
+   */
+  public synchronized RobotOrientationPublisher setFlushOnSet(boolean flush)
+  {
+    flushOnSet = flush;
+    return this;
+  }
+
+  /**
+   * Publish the robot orientation.
+   *
+   * @param yawDegrees                Robot yaw in degrees, counter-clockwise positive, blue-origin.
+   * @param yawRateDegreesPerSecond   Robot yaw rate in degrees per second.
+   * @param pitchDegrees              Robot pitch in degrees.
+   * @param pitchRateDegreesPerSecond Robot pitch rate in degrees per second.
+   * @param rollDegrees               Robot roll in degrees.
+   * @param rollRateDegreesPerSecond  Robot roll rate in degrees per second.
+   */
+  public synchronized void set(double yawDegrees, double yawRateDegreesPerSecond, double pitchDegrees,
+                               double pitchRateDegreesPerSecond, double rollDegrees, double rollRateDegreesPerSecond)
+  {
+    orientation[0] = yawDegrees;
+    orientation[1] = yawRateDegreesPerSecond;
+    orientation[2] = pitchDegrees;
+    orientation[3] = pitchRateDegreesPerSecond;
+    orientation[4] = rollDegrees;
+    orientation[5] = rollRateDegreesPerSecond;
+    publisher.set(orientation);
+    if (flushOnSet)
+    {
+      ntInstance.flush();
+    }
+    publishCount++;
+  }
+
+  /**
+   * Publish the robot yaw, which is all MegaTag2 uses, with zero pitch and roll.
+   *
+   * @param yawDegrees              Robot yaw in degrees, counter-clockwise positive, blue-origin.
+   * @param yawRateDegreesPerSecond Robot yaw rate in degrees per second.
+   */
+  public void set(double yawDegrees, double yawRateDegreesPerSecond)
+  {
+    set(yawDegrees, yawRateDegreesPerSecond, 0, 0, 0, 0);
+  }
+
+  /**
+   * Publish the robot yaw from a {@link Notifier} thread at a fixed period, independent of the robot loop. Replaces
+   * any running {@link Notifier}.
+   *
+   * @param yawDegrees              Supplier of the robot yaw in degrees; must be safe to call from another thread.
+   * @param yawRateDegreesPerSecond Supplier of the robot yaw rate in degrees per second; must be safe to call from
+   *                                another thread.
+   * @param periodSeconds           Publishing period in seconds, e.g. {@link #DEFAULT_PERIOD_SECONDS}.
+   * @return {@link RobotOrientationPublisher} for chaining.
+   */
+  public RobotOrientationPublisher startPeriodic(DoubleSupplier yawDegrees, DoubleSupplier yawRateDegreesPerSecond,
+                                                 double periodSeconds)
+  {
+    synchronized (notifierLock)
+    {
+      stopPeriodic();
+      notifier = new Notifier(() -> set(yawDegrees.getAsDouble(), yawRateDegreesPerSecond.getAsDouble()));
+      notifier.setName("RobotOrientationPublisher");
+      notifier.startPeriodic(periodSeconds);
+    }
+    return this;
+  }
+
+  /**
+   * Stop the {@link Notifier} started by {@link #startPeriodic(DoubleSupplier, DoubleSupplier, double)}.
+   */
+  public void stopPeriodic()
+  {
+    synchronized (notifierLock)
+    {
+      if (notifier != null)
+      {
+        notifier.stop();
+        notifier.close();
+        notifier = null;
+      }
+    }
+  }
+
+  /**
+   * Number of orientations published.
+   *
+   * @return Publish count.
+   */
+  public synchronized long getPublishCount()
+  {
+    return publishCount;
+  }
+
+  /**
+   * Stop publishing and release the NetworkTables publisher.
+   */
+  @Override
+  public void close()
+  {
+    stopPeriodic();
+    synchronized (this)
+    {
+      publisher.close();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package limelight.estimator;
+
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * {@link VisionTrustModel} whose standard deviations grow with the square of the average tag distance and with the
+ * average tag ambiguity, and shrink with the number of tags.
+ * <p>
+ * {@code stdDev = base * max(avgTagDist, 1)^2 * (1 + ambiguityWeight * avgAmbiguity) / tagCount}, multiplied by the
+ * single tag factor when only one tag is seen.
+ */
+public class DistanceTrustModel implements VisionTrustModel
+{
+
+  /**
+   * Rotation standard deviation used when the rotation must not be trusted.
+   */
+  public static final double UNTRUSTED_STD_DEV = 9_999_999;
+
+  /**
+   * MegaTag1 profile.
+   */
+  public static final DistanceTrustModel MEGATAG1 = new DistanceTrustModel(0.1, 0.2, 1.0, 2.0, false);
+  /**
+   * MegaTag2 profile. The MegaTag2 yaw is the robot gyro fed back by the robot, so it is not trusted, and MegaTag2
+   * does not suffer from single-tag ambiguity flips.
+   */
+  public static final DistanceTrustModel MEGATAG2 = new DistanceTrustModel(0.05, UNTRUSTED_STD_DEV, 0.0, 1.0, true);
+
+  /**
+   * X/Y standard deviation in meters for one tag at one meter.
+   */
+  public final double  xyStdDevBase;
+  /**
+   * Rotation standard deviation in radians for one tag at one meter.
+   */
+  public final double  thetaStdDevBase;
+  /**
+   * Weight of the average tag ambiguity.
+   */
+  public final double  ambiguityWeight;
+  /**
+   * Multiplier when only one tag is seen.
+   */
+  public final double  singleTagFactor;
+  /**
+   * Report {@link #UNTRUSTED_STD_DEV} for the rotation regardless of the tags.
+   */
+  public final boolean ignoreRotation;
+
+  /**
+   * Create a {@link DistanceTrustModel}.
+   *
+   * @param xyStdDevBase    X/Y standard deviation in meters for one tag at one meter.
+   * @param thetaStdDevBase Rotation standard deviation in radians for one tag at one meter.
+   * @param ambiguityWeight Weight of the average tag ambiguity.
+   * @param singleTagFactor Multiplier when only one tag is seen.
+   * @param ignoreRotation  Report {@link #UNTRUSTED_STD_DEV} for the rotation.
+   */
+  public DistanceTrustModel(double xyStdDevBase, double thetaStdDevBase, double ambiguityWeight,
+                            double singleTagFactor, boolean ignoreRotation)
+  {
+    this.xyStdDevBase = xyStdDevBase;
+    this.thetaStdDevBase = thetaStdDevBase;
+    this.ambiguityWeight = ambiguityWeight;
+    this.singleTagFactor = singleTagFactor;
+    this.ignoreRotation = ignoreRotation;
+  }
+
+  /**
+   * Scale of the standard deviations for a tag count and distance, without ambiguity.
+   *
+   * @param tagCount   Number of tags, at least 1.
+   * @param avgTagDist Average tag distance in meters.
+   * @return Standard deviation scale.
+   */
+  double scale(int tagCount, double avgTagDist)
+  {
+    double distance = Math.max(avgTagDist, 1);
+    double scale    = distance * distance / tagCount;
+    return tagCount == 1 ? scale * singleTagFactor : scale;
+  }
+
+  /**
+   * Scale of the standard deviations for an average ambiguity.
+   *
+   * @param avgAmbiguity Average tag ambiguity [0,1].
+   * @return Ambiguity scale.
+   */
+  double ambiguityScale(double avgAmbiguity)
+  {
+    return 1 + ambiguityWeight * avgAmbiguity;
+  }
+
+  @Override
+  public boolean computeStdDevs(PoseEstimate estimate, Matrix<N3, N1> stdDevs)
+  {
+    if (!estimate.hasData || estimate.tagCount <= 0)
+    {
+      return false;
+    }
+    double scale = scale(estimate.tagCount, estimate.avgTagDist);
+    if (ambiguityWeight != 0)
+    {
+      scale *= ambiguityScale(estimate.getAvgTagAmbiguity());
+    }
+    stdDevs.set(0, 0, xyStdDevBase * scale);
+    stdDevs.set(1, 0, xyStdDevBase * scale);
+    stdDevs.set(2, 0, ignoreRotation ? UNTRUSTED_STD_DEV : thetaStdDevBase * scale);
+    return true;
+  }
+}
@@ -0,0 +1,271 @@
+package limelight.estimator;
+
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import java.util.Optional;
+import limelight.Limelight;
+import limelight.estimator.LimelightPoseEstimator.BotPose;
+
+/**
+ * Fuses the {@link PoseEstimate}s of several {@link Limelight}s into one time-ordered stream of vision measurements
+ * per robot loop, each with standard deviations from a {@link VisionTrustModel} based on the tag count, average tag
+ * distance and average tag ambiguity.
+ * <p>
+ * All buffers, including one standard deviation {@link Matrix} per camera, are allocated at construction and reused
+ * by every {@link #update()}, so fusing four cameras costs about the same as reading one.
+ * <pre>{@code
+ * fusion.update();
+ * fusion.forEach((estimate, stdDevs) ->
+ *     drivePoseEstimator.addVisionMeasurement(estimate.getPose2d(), estimate.timestampSeconds, stdDevs));
+ * }</pre>
+ */
+public class LimelightFusion
+{
+
+  /**
+   * {@link Limelight}s to fuse.
+   */
+  private final Limelight[]               cameras;
+  /**
+   * {@link BotPose} read from each camera.
+   */
+  private final BotPose                   botPose;
+  /**
+   * {@link VisionTrustModel} giving the standard deviations of each estimate.
+   */
+  private final VisionTrustModel          trustModel;
+  /**
+   * Optional {@link PoseEstimateFilterChain} of each camera, null to accept every estimate with AprilTags.
+   */
+  private final PoseEstimateFilterChain[] filterChains;
+  /**
+   * Timestamp of the last estimate taken from each camera, so a frame is only fused once.
+   */
+  private final double[]                  lastTimestamps;
+  /**
+   * Estimates fused by the last {@link #update()}, sorted by timestamp.
+   */
+  private final PoseEstimate[]            estimates;
+  /**
+   * Camera index of each fused estimate.
+   */
+  private final int[]                     cameraIndices;
+  /**
+   * Standard deviations of each fused estimate, [x, y, theta].
+   */
+  private final Matrix<N3, N1>[]          stdDevs;
+  /**
+   * Number of estimates fused by the last {@link #update()}.
+   */
+  private       int                       count;
+  /**
+   * Record fused estimates in each camera's {@link PoseHistory}.
+   */
+  private       boolean                   recordHistory = true;
+
+  /**
+   * Create a {@link LimelightFusion} of the blue-origin pose estimates of the given {@link Limelight}s, rated by the
+   * built-in {@link VisionTrustModel} profile for MegaTag1 or MegaTag2.
+   *
+   * @param megatag2 Use MegaTag2 pose estimates.
+   * @param cameras  {@link Limelight}s to fuse.
+   */
+  public LimelightFusion(boolean megatag2, Limelight... cameras)
+  {
+    this(megatag2, VisionTrustModel.forMegaTag(megatag2), cameras);
+  }
+
+  /**
+   * Create a {@link LimelightFusion} of the blue-origin pose estimates of the given {@link Limelight}s.
+   *
+   * @param megatag2   Use MegaTag2 pose estimates.
+   * @param trustModel {@link VisionTrustModel} giving the standard deviations of each estimate.
+   * @param cameras    {@link Limelight}s to fuse.
+   */
+  @SuppressWarnings("unchecked")
+  public LimelightFusion(boolean megatag2, VisionTrustModel trustModel, Limelight... cameras)
+  {
+    this.cameras = cameras.clone();
+    this.botPose = megatag2 ? BotPose.BLUE_MEGATAG2 : BotPose.BLUE;
+    this.trustModel = trustModel;
+    lastTimestamps = new double[cameras.length];
+    estimates = new PoseEstimate[cameras.length];
+    cameraIndices = new int[cameras.length];
+    filterChains = new PoseEstimateFilterChain[cameras.length];
+    stdDevs = new Matrix[cameras.length];
+    for (int i = 0; i < cameras.length; i++)
+    {
+      lastTimestamps[i] = Double.NaN;
+      stdDevs[i] = new Matrix<>(Nat.N3(), Nat.N1());
+    }
+  }
+
+  /**
+   * Gate the estimates of a camera with a {@link PoseEstimateFilterChain} before they are fused.
+   *
+   * @param cameraIndex Index of the camera in the constructor arguments.
+   * @param filterChain {@link PoseEstimateFilterChain} for that camera, or null to accept every estimate.
+   * @return {@link LimelightFusion} for chaining.
+   */
+  public LimelightFusion setFilterChain(int cameraIndex, PoseEstimateFilterChain filterChain)
+  {
+    filterChains[cameraIndex] = filterChain;
+    return this;
+  }
+
+  /**
+   * Record every fused estimate in the {@link Limelight#getPoseHistory()} of its camera. Enabled by default.
+   *
+   * @param recordHistory Record fused estimates.
+   * @return {@link LimelightFusion} for chaining.
+   */
+  public LimelightFusion setRecordHistory(boolean recordHistory)
+  {
+    this.recordHistory = recordHistory;
+    return this;
+  }
+
+  /**
+   * Read every camera and fuse the estimates that are new since the previous update, contain AprilTags and pass the camera's
+   * {@link PoseEstimateFilterChain}.
+   *
+   * @return Number of fused estimates, available through {@link #getEstimate(int)} in timestamp order.
+   */
+  public int update()
+  {
+    count = 0;
+    for (int camera = 0; camera < cameras.length; camera++)
+    {
+      Optional<PoseEstimate> reading = botPose.get(cameras[camera]);
+      if (reading.isEmpty() || !reading.get().hasData || reading.get().timestampSeconds == lastTimestamps[camera])
+      {
+        continue;
+      }
+      PoseEstimate estimate = reading.get();
+      lastTimestamps[camera] = estimate.timestampSeconds;
+      if (filterChains[camera] != null && !filterChains[camera].accept(estimate))
+      {
+        continue;
+      }
+      Matrix<N3, N1> buffer = stdDevs[count];
+      if (!trustModel.computeStdDevs(estimate, buffer))
+      {
+        continue;
+      }
+      if (recordHistory)
+      {
+        cameras[camera].getPoseHistory().add(estimate, buffer);
+      }
+
+      // Insertion sort by timestamp; the matrices move with their estimates so each slot keeps its own buffer.
+      int slot = count++;
+      while (slot > 0 && estimates[slot - 1].timestampSeconds > estimate.timestampSeconds)
+      {
+        estimates[slot] = estimates[slot - 1];
+        cameraIndices[slot] = cameraIndices[slot - 1];
+        stdDevs[slot] = stdDevs[slot - 1];
+        slot--;
+      }
+      estimates[slot] = estimate;
+      cameraIndices[slot] = camera;
+      stdDevs[slot] = buffer;
+    }
+    for (int i = count; i < estimates.length; i++)
+    {
+      estimates[i] = null;
+    }
+    return count;
+  }
+
+  /**
+   * Number of estimates fused by the last {@link #update()}.
+   *
+   * @return Fused estimate count.
+   */
+  public int size()
+  {
+    return count;
+  }
+
+  /**
+   * Get a fused estimate. Estimates are in timestamp order, oldest first.
+   *
+   * @param index Estimate index, less than {@link #size()}.
+   * @return {@link PoseEstimate}.
+   */
+  public PoseEstimate getEstimate(int index)
+  {
+    checkIndex(index);
+    return estimates[index];
+  }
+
+  /**
+   * Get the standard deviations of a fused estimate, in the form expected by
+   * {@code PoseEstimator.addVisionMeasurement}. The matrix is reused by the next {@link #update()}.
+   *
+   * @param index Estimate index, less than {@link #size()}.
+   * @return Standard deviations [x meters, y meters, theta radians].
+   */
+  public Matrix<N3, N1> getStdDevs(int index)
+  {
+    checkIndex(index);
+    return stdDevs[index];
+  }
+
+  /**
+   * Get the {@link Limelight} a fused estimate came from.
+   *
+   * @param index Estimate index, less than {@link #size()}.
+   * @return {@link Limelight} of the estimate.
+   */
+  public Limelight getCamera(int index)
+  {
+    checkIndex(index);
+    return cameras[cameraIndices[index]];
+  }
+
+  /**
+   * Pass every estimate fused by the last {@link #update()} to the consumer, oldest first.
+   *
+   * @param consumer {@link VisionMeasurementConsumer} to receive the estimates.
+   */
+  public void forEach(VisionMeasurementConsumer consumer)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      consumer.accept(estimates[i], stdDevs[i]);
+    }
+  }
+
+  /**
+   * Check a fused estimate index.
+   *
+   * @param index Estimate index.
+   */
+  private void checkIndex(int index)
+  {
+    if (index < 0 || index >= count)
+    {
+      throw new IndexOutOfBoundsException("Estimate " + index + " of " + count);
+    }
+  }
+
+  /**
+   * Receives fused vision measurements.
+   */
+  @FunctionalInterface
+  public interface VisionMeasurementConsumer
+  {
+
+    /**
+     * Accept a fused vision measurement.
+     *
+     * @param estimate {@link PoseEstimate} to add.
+     * @param stdDevs  Standard deviations [x meters, y meters, theta radians], reused by the next update.
+     */
+    void accept(PoseEstimate estimate, Matrix<N3, N1> stdDevs);
+  }
+}
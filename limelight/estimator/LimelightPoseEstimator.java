@@ -6,6 +6,7 @@ import static limelight.structures.LimelightUtils.toPose3D;
 import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.networktables.DoubleArrayEntry;
 import edu.wpi.first.wpilibj.DriverStation;
+import java.util.List;
 import java.util.Optional;
 import limelight.Limelight;
 
@@ -91,6 +92,19 @@ public class LimelightPoseEstimator
     return megatag2 ? BotPose.BLUE_MEGATAG2.get(limelight) : BotPose.BLUE.get(limelight);
   }
 
+  /**
+   * Get every global pose estimate frame published since the previous call, based off WPILib coordinates,
+   * blue-origin. Use this instead of {@link #getPoseEstimate()} to fuse every frame when the {@link Limelight} runs
+   * faster than the robot loop.
+   *
+   * @return {@link PoseEstimate} frames for blue-origin based poses, oldest first, possibly empty.
+   * @see PoseEstimate#getPoseEstimateQueue()
+   */
+  public List<PoseEstimate> getPoseEstimates()
+  {
+    return megatag2 ? BotPose.BLUE_MEGATAG2.getQueue(limelight) : BotPose.BLUE.getQueue(limelight);
+  }
+
 
   /**
    * BotPose enum for easier decoding.
@@ -121,11 +135,7 @@ public class LimelightPoseEstimator
     /**
      * Is megatag2 reading?
      */
-    private final boolean                isMegaTag2;
-    /**
-     * Current {@link PoseEstimate}
-     */
-    private       Optional<PoseEstimate> poseEstimate;
+    private final boolean isMegaTag2;
 
     /**
      * Create {@link BotPose} enum with given entry names and megatag2 state.
@@ -137,23 +147,51 @@ public class LimelightPoseEstimator
     {
       entry = entryName;
       isMegaTag2 = megatag2;
-      poseEstimate = Optional.empty();
     }
 
     /**
-     * Fetch the {@link PoseEstimate} if it exists.
+     * Get the {@link Limelight} NetworkTables entry name for this bot pose.
+     *
+     * @return Bot pose entry name.
+     */
+    public String getEntryName()
+    {
+      return entry;
+    }
+
+    /**
+     * Is this a MegaTag2 bot pose?
+     *
+     * @return True for MegaTag2.
+     */
+    public boolean isMegaTag2()
+    {
+      return isMegaTag2;
+    }
+
+    /**
+     * Fetch the {@link PoseEstimate} of the given {@link Limelight} if it exists.
+     * <p>
+     * Each {@link Limelight} keeps its own {@link PoseEstimate} per bot pose, so several cameras can be read without
+     * sharing or re-creating NetworkTables subscriptions.
      *
      * @param camera {@link Limelight} to use.
      * @return Current {@link PoseEstimate}.
      */
     public Optional<PoseEstimate> get(Limelight camera)
     {
-      if (poseEstimate.isEmpty())
-      {
-        PoseEstimate estimate = new PoseEstimate(camera, entry, isMegaTag2);
-        poseEstimate = Optional.of(estimate);
-      }
-      return poseEstimate.get().getPoseEstimate();
+      return camera.getBotPoseEstimate(this).getPoseEstimate();
+    }
+
+    /**
+     * Fetch every {@link PoseEstimate} frame the given {@link Limelight} published since the previous call.
+     *
+     * @param camera {@link Limelight} to use.
+     * @return {@link PoseEstimate} frames, oldest first.
+     */
+    public List<PoseEstimate> getQueue(Limelight camera)
+    {
+      return camera.getBotPoseEstimate(this).getPoseEstimateQueue();
     }
 
 
@@ -0,0 +1,123 @@
+package limelight.estimator;
+
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * {@link VisionTrustModel} backed by precomputed standard deviations over (tag count, distance bucket), so rating an
+ * estimate is two array reads plus the ambiguity scale.
+ * <p>
+ * Tag counts above the table are rated as the largest tag count, and distances beyond the last bucket as the last
+ * bucket.
+ */
+public class LookupTableTrustModel implements VisionTrustModel
+{
+
+  /**
+   * X/Y standard deviations indexed by [tagCount - 1][distance bucket].
+   */
+  private final double[][] xyStdDevs;
+  /**
+   * Rotation standard deviations indexed by [tagCount - 1][distance bucket].
+   */
+  private final double[][] thetaStdDevs;
+  /**
+   * Width of a distance bucket in meters.
+   */
+  private final double     bucketMeters;
+  /**
+   * Weight of the average tag ambiguity.
+   */
+  private final double     ambiguityWeight;
+
+  /**
+   * Create a {@link LookupTableTrustModel} from explicit tables.
+   *
+   * @param xyStdDevs       X/Y standard deviations in meters, indexed by [tagCount - 1][distance bucket].
+   * @param thetaStdDevs    Rotation standard deviations in radians, same shape as {@code xyStdDevs}.
+   * @param bucketMeters    Width of a distance bucket in meters.
+   * @param ambiguityWeight Weight of the average tag ambiguity applied on top of the table.
+   */
+  public LookupTableTrustModel(double[][] xyStdDevs, double[][] thetaStdDevs, double bucketMeters,
+                               double ambiguityWeight)
+  {
+    if (xyStdDevs.length == 0 || xyStdDevs.length != thetaStdDevs.length || bucketMeters <= 0)
+    {
+      throw new IllegalArgumentException("Trust tables must be non-empty, the same shape, and have positive buckets");
+    }
+    for (int i = 0; i < xyStdDevs.length; i++)
+    {
+      if (xyStdDevs[i].length == 0 || xyStdDevs[i].length != thetaStdDevs[i].length)
+      {
+        throw new IllegalArgumentException("Trust table row " + i + " is empty or mismatched");
+      }
+    }
+    this.xyStdDevs = deepCopy(xyStdDevs);
+    this.thetaStdDevs = deepCopy(thetaStdDevs);
+    this.bucketMeters = bucketMeters;
+    this.ambiguityWeight = ambiguityWeight;
+  }
+
+  /**
+   * Precompute a {@link LookupTableTrustModel} from a {@link DistanceTrustModel} profile, sampling each bucket at its
+   * center.
+   *
+   * @param profile      {@link DistanceTrustModel} to tabulate.
+   * @param maxTagCount  Largest tag count in the table.
+   * @param bucketMeters Width of a distance bucket in meters.
+   * @param buckets      Number of distance buckets.
+   * @return {@link LookupTableTrustModel} equivalent to the profile at the bucket centers.
+   */
+  public static LookupTableTrustModel of(DistanceTrustModel profile, int maxTagCount, double bucketMeters,
+                                         int buckets)
+  {
+    double[][] xy    = new double[maxTagCount][buckets];
+    double[][] theta = new double[maxTagCount][buckets];
+    for (int tags = 1; tags <= maxTagCount; tags++)
+    {
+      for (int bucket = 0; bucket < buckets; bucket++)
+      {
+        double scale = profile.scale(tags, (bucket + 0.5) * bucketMeters);
+        xy[tags - 1][bucket] = profile.xyStdDevBase * scale;
+        theta[tags - 1][bucket] = profile.ignoreRotation ? DistanceTrustModel.UNTRUSTED_STD_DEV
+                                                         : profile.thetaStdDevBase * scale;
+      }
+    }
+    return new LookupTableTrustModel(xy, theta, bucketMeters, profile.ambiguityWeight);
+  }
+
+  /**
+   * Copy a table.
+   *
+   * @param table Table to copy.
+   * @return Copy of the table.
+   */
+  private static double[][] deepCopy(double[][] table)
+  {
+    double[][] copy = new double[table.length][];
+    for (int i = 0; i < table.length; i++)
+    {
+      copy[i] = table[i].clone();
+    }
+    return copy;
+  }
+
+  @Override
+  public boolean computeStdDevs(PoseEstimate estimate, Matrix<N3, N1> stdDevs)
+  {
+    if (!estimate.hasData || estimate.tagCount <= 0)
+    {
+      return false;
+    }
+    int    row    = Math.min(estimate.tagCount, xyStdDevs.length) - 1;
+    int    bucket = (int) Math.min(Math.max(estimate.avgTagDist, 0) / bucketMeters, xyStdDevs[row].length - 1);
+    double scale  = ambiguityWeight == 0 ? 1 : 1 + ambiguityWeight * estimate.getAvgTagAmbiguity();
+    stdDevs.set(0, 0, xyStdDevs[row][bucket] * scale);
+    stdDevs.set(1, 0, xyStdDevs[row][bucket] * scale);
+    double theta = thetaStdDevs[row][bucket];
+    stdDevs.set(2, 0, theta >= DistanceTrustModel.UNTRUSTED_STD_DEV ? theta : theta * scale);
+    return true;
+  }
+}
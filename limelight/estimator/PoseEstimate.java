@@ -4,13 +4,29 @@ package limelight.estimator;
 import static limelight.structures.LimelightUtils.extractArrayEntry;
 import static limelight.structures.LimelightUtils.toPose3D;
 
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.DoubleArrayEntry;
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.PubSubOption;
 import edu.wpi.first.networktables.TimestampedDoubleArray;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import limelight.Limelight;
+import limelight.LimelightClockSync;
+import limelight.LimelightMetrics;
 import limelight.results.RawFiducial;
+import limelight.results.RawFiducialBuffer;
 
 /**
  * Represents a 3D Pose Estimate.
@@ -18,6 +34,11 @@ import limelight.results.RawFiducial;
 public class PoseEstimate
 {
 
+  /**
+   * Maximum number of frames kept by NetworkTables between calls to {@link #getPoseEstimateQueue()}.
+   */
+  private static final int QUEUE_DEPTH = 20;
+
   /**
    * Is a MegaTag2 reading
    */
@@ -31,11 +52,36 @@ public class PoseEstimate
    */
   private final String           poseEntryName;
   /**
-   * Bot pose estimate
+   * Bot pose estimate, null while {@link #setLightweightDecoding(boolean) lightweight decoding} is enabled.
    */
   public        Pose3d           pose;
   /**
-   * NT Timestamp in seconds
+   * Bot pose X in meters
+   */
+  public        double           x;
+  /**
+   * Bot pose Y in meters
+   */
+  public        double           y;
+  /**
+   * Bot pose Z in meters
+   */
+  public        double           z;
+  /**
+   * Bot pose roll in radians
+   */
+  public        double           roll;
+  /**
+   * Bot pose pitch in radians
+   */
+  public        double           pitch;
+  /**
+   * Bot pose yaw in radians
+   */
+  public        double           yaw;
+  /**
+   * Capture timestamp in FPGA seconds, converted from the NT timestamp by the {@link LimelightClockSync} of the
+   * {@link Limelight} and adjusted for latency
    */
   public        double           timestampSeconds;
   /**
@@ -62,14 +108,54 @@ public class PoseEstimate
    * AprilTags
    */
   public        RawFiducial[]    rawFiducials;
+  /**
+   * AprilTags as a view over the pose array, without a {@link RawFiducial} per tag.
+   */
+  private final RawFiducialBuffer rawFiducialBuffer = new RawFiducialBuffer();
   /**
    * Does the pose limelight.estimator contain data?
    */
   public        boolean          hasData;
   /**
-   * {@link Limelight} Pose Entry NetworkTables.
+   * {@link Limelight} Pose Entry NetworkTables, null for a queued frame.
    */
   private       DoubleArrayEntry poseEntry;
+  /**
+   * Queued {@link Limelight} Pose subscriber, created on the first {@link #getPoseEstimateQueue()} call.
+   */
+  private       DoubleArraySubscriber poseQueue;
+  /**
+   * Is the pose decoded on the NetworkTables listener thread?
+   */
+  private       boolean               backgroundDecoding;
+  /**
+   * NetworkTables listener handle while {@link #backgroundDecoding}.
+   */
+  private       int                   listenerHandle;
+  /**
+   * Latest {@link Snapshot} decoded by the NetworkTables listener thread, null before the first.
+   */
+  private volatile Snapshot              backgroundSnapshot;
+  /**
+   * {@link Snapshot} last copied into this {@link PoseEstimate} by {@link #getPoseEstimate()}, null if none.
+   */
+  private       Snapshot              appliedSnapshot;
+  /**
+   * Skip building {@link #pose} and {@link #rawFiducials} when decoding.
+   */
+  private       boolean               lightweightDecoding;
+  /**
+   * NT timestamp of the last decoded pose array in microseconds, -1 if none.
+   */
+  private       long                  lastTimestamp = -1;
+  /**
+   * Result of the last decode, returned again while the pose array is unchanged.
+   */
+  private       Optional<PoseEstimate> lastEstimate = Optional.empty();
+  /**
+   * {@link LimelightMetrics.Channel} of the pose entry, null for a queued frame.
+   */
+  private       LimelightMetrics.Channel metrics;
 
   /**
    * Construct the {@link PoseEstimate} from the limelight entry in NT.
@@ -93,11 +179,29 @@ public class PoseEstimate
     limelight = camera;
     poseEntry = limelight.getNTTable().getDoubleArrayTopic(poseEntryName)
                          .getEntry(new double[0]);
+    metrics = limelight.getMetrics().poseEstimate(poseEntryName);
+  }
+
+  /**
+   * Construct an unsubscribed {@link PoseEstimate} for a single queued frame of another {@link PoseEstimate}, or as
+   * the scratch estimate of the background decoder.
+   *
+   * @param source {@link PoseEstimate} the frame was read from.
+   */
+  private PoseEstimate(PoseEstimate source)
+  {
+    this.pose = new Pose3d();
+    this.rawFiducials = new RawFiducial[]{};
+    this.isMegaTag2 = source.isMegaTag2;
+    this.lightweightDecoding = source.lightweightDecoding;
+    poseEntryName = source.poseEntryName;
+    limelight = source.limelight;
   }
 
 
   /**
-   * Refresh the {@link PoseEstimate}
+   * Refresh the {@link PoseEstimate}. A queued frame from {@link #getPoseEstimateQueue()} is not subscribed and is
+   * returned unchanged.
    *
    * @return {@link PoseEstimate}
    */
@@ -109,55 +213,211 @@ public class PoseEstimate
 
   /**
    * Refresh {@link PoseEstimate} object
+   * <p>
+   * Nothing is decoded if the {@link Limelight} has not published a new pose since the previous call. A queued frame
+   * from {@link #getPoseEstimateQueue()} is not subscribed and returns itself.
    *
    * @return {@link PoseEstimate} for chaining.
    */
   public Optional<PoseEstimate> getPoseEstimate()
   {
+    if (poseEntry == null)
+    {
+      return Optional.of(this);
+    }
+    if (!limelight.isFresh())
+    {
+      hasData = false;
+      lastTimestamp = -1;
+      appliedSnapshot = null;
+      lastEstimate = Optional.empty();
+      return lastEstimate;
+    }
+    metrics.call();
+    if (backgroundDecoding)
+    {
+      Snapshot snapshot = backgroundSnapshot;
+      if (snapshot != null && snapshot != appliedSnapshot)
+      {
+        appliedSnapshot = snapshot;
+        lastEstimate = snapshot.copyTo(this) ? Optional.of(this) : Optional.empty();
+      }
+      return lastEstimate;
+    }
 
-    TimestampedDoubleArray tsValue   = poseEntry.getAtomic();
-    double[]               poseArray = tsValue.value;
-    long                   timestamp = tsValue.timestamp;
+    long lastChange = poseEntry.getLastChange();
+    if (lastChange == lastTimestamp)
+    {
+      return lastEstimate;
+    }
+    long                   startNanos = limelight.getMetrics().start();
+    TimestampedDoubleArray tsValue    = poseEntry.getAtomic();
+    lastTimestamp = tsValue.timestamp;
+    lastEstimate = decode(tsValue.value, tsValue.timestamp) ? Optional.of(this) : Optional.empty();
+    metrics.decoded(startNanos, tsValue.value.length * Double.BYTES, tsValue.timestamp);
+    return lastEstimate;
+  }
 
+  /**
+   * Skip building the {@link Pose3d} and the {@link RawFiducial} array when decoding. {@link #pose} is then null and
+   * {@link #rawFiducials} is empty; use the primitive {@link #x}, {@link #y}, {@link #yaw} etc., {@link #getPose2d()}
+   * and {@link #getRawFiducialBuffer()} instead. This avoids the 3D rotation math for callers that only need a
+   * {@link Pose2d}.
+   *
+   * @param lightweight True to skip the {@link Pose3d} and {@link RawFiducial} objects.
+   * @return {@link PoseEstimate} for chaining.
+   */
+  public PoseEstimate setLightweightDecoding(boolean lightweight)
+  {
+    lightweightDecoding = lightweight;
+    lastTimestamp = -1;
+    return this;
+  }
+
+  /**
+   * Get the bot pose estimate on the field plane from the primitive pose values.
+   *
+   * @return {@link Pose2d} of the bot pose estimate.
+   */
+  public Pose2d getPose2d()
+  {
+    return new Pose2d(x, y, new Rotation2d(yaw));
+  }
+
+  /**
+   * Get every {@link PoseEstimate} frame the {@link Limelight} published since the previous call, oldest first, each
+   * with its own latency-compensated timestamp. Unlike {@link #getPoseEstimate()} no frame is lost when the
+   * {@link Limelight} publishes faster than the robot loop runs.
+   * <p>
+   * The queue is subscribed on the first call, so the first call returns no frames. NetworkTables keeps up to
+   * {@value #QUEUE_DEPTH} frames between calls.
+   *
+   * @return {@link PoseEstimate} frames received since the last call, possibly empty; always empty for a queued frame.
+   */
+  public List<PoseEstimate> getPoseEstimateQueue()
+  {
+    if (poseEntry == null)
+    {
+      return new ArrayList<>();
+    }
+    if (poseQueue == null)
+    {
+      poseQueue = limelight.getNTTable().getDoubleArrayTopic(poseEntryName)
+                           .subscribe(new double[0],
+                                      PubSubOption.sendAll(true),
+                                      PubSubOption.pollStorage(QUEUE_DEPTH));
+    }
+    TimestampedDoubleArray[] frames    = poseQueue.readQueue();
+    if (!limelight.isFresh())
+    {
+      return new ArrayList<>();
+    }
+    List<PoseEstimate>       estimates = new ArrayList<>(frames.length);
+    for (TimestampedDoubleArray frame : frames)
+    {
+      PoseEstimate estimate = new PoseEstimate(this);
+      if (estimate.decode(frame.value, frame.timestamp))
+      {
+        estimates.add(estimate);
+      }
+    }
+    return estimates;
+  }
+
+  /**
+   * Decode each new bot pose on the NetworkTables listener thread as it arrives instead of on the robot loop.
+   * <p>
+   * Every frame is decoded on the listener thread into an immutable {@link Snapshot} handed to the robot loop through
+   * a volatile field. {@link #getPoseEstimate()} copies a new snapshot into this {@link PoseEstimate}, which takes
+   * no decoding, and keeps returning this object, so {@link #refresh()} works as in the foreground. Does nothing on a
+   * queued frame.
+   */
+  public void startBackgroundDecoding()
+  {
+    if (backgroundDecoding || poseEntry == null)
+    {
+      return;
+    }
+    // Owned by the listener thread; each frame is decoded into it and frozen into a new Snapshot.
+    PoseEstimate scratch = new PoseEstimate(this);
+    listenerHandle = limelight.getNTTable().getInstance().addListener(
+        poseEntry,
+        EnumSet.of(NetworkTableEvent.Kind.kImmediate, NetworkTableEvent.Kind.kValueAll),
+        event -> {
+          long              startNanos = limelight.getMetrics().start();
+          NetworkTableValue value      = event.valueData.value;
+          double[]          poseArray  = value.getDoubleArray();
+          backgroundSnapshot = scratch.decode(poseArray, value.getTime())
+                               ? new Snapshot(scratch, poseArray)
+                               : Snapshot.EMPTY;
+          metrics.decoded(startNanos, poseArray.length * Double.BYTES, value.getTime());
+        });
+    backgroundDecoding = true;
+  }
+
+  /**
+   * Stop decoding on the NetworkTables listener thread and go back to decoding in {@link #getPoseEstimate()}.
+   */
+  public void stopBackgroundDecoding()
+  {
+    if (!backgroundDecoding)
+    {
+      return;
+    }
+    limelight.getNTTable().getInstance().removeListener(listenerHandle);
+    backgroundDecoding = false;
+    backgroundSnapshot = null;
+    appliedSnapshot = null;
+    lastTimestamp = -1;
+  }
+
+  /**
+   * Decode a {@link Limelight} bot pose array into this {@link PoseEstimate}.
+   *
+   * @param poseArray Bot pose array.
+   * @param timestamp NT timestamp of the array in microseconds.
+   * @return False if the array is empty.
+   */
+  private boolean decode(double[] poseArray, long timestamp)
+  {
     if (poseArray.length == 0)
     {
       hasData = false;
-      return Optional.empty();
+      return false;
     }
 
-    var    pose     = toPose3D(poseArray);
+    double x        = extractArrayEntry(poseArray, 0);
+    double y        = extractArrayEntry(poseArray, 1);
+    double z        = extractArrayEntry(poseArray, 2);
+    double roll     = Units.degreesToRadians(extractArrayEntry(poseArray, 3));
+    double pitch    = Units.degreesToRadians(extractArrayEntry(poseArray, 4));
+    double yaw      = Units.degreesToRadians(extractArrayEntry(poseArray, 5));
     double latency  = extractArrayEntry(poseArray, 6);
     int    tagCount = (int) extractArrayEntry(poseArray, 7);
     double tagSpan  = extractArrayEntry(poseArray, 8);
     double tagDist  = extractArrayEntry(poseArray, 9);
     double tagArea  = extractArrayEntry(poseArray, 10);
 
-    // Convert server timestamp from microseconds to seconds and adjust for latency
-    double adjustedTimestamp = (timestamp / 1_000_000.0) - (latency / 1_000.0);
+    // Convert the NT timestamp to FPGA seconds and adjust for latency
+    double adjustedTimestamp = limelight.getClockSync().captureTimestamp(timestamp, latency);
 
-    RawFiducial[] rawFiducials      = new RawFiducial[tagCount];
-    int           valsPerFiducial   = 7;
-    int           expectedTotalVals = 11 + valsPerFiducial * tagCount;
+    int valsPerFiducial   = RawFiducialBuffer.VALUES_PER_FIDUCIAL;
+    int expectedTotalVals = 11 + valsPerFiducial * tagCount;
 
-    if (poseArray.length != expectedTotalVals)
-    {
-      // Don't populate fiducials
-    } else
+    // Don't populate fiducials unless the array holds exactly tagCount of them
+    rawFiducialBuffer.wrap(poseArray, 11, poseArray.length == expectedTotalVals ? tagCount : 0);
+    RawFiducial[] rawFiducials = new RawFiducial[lightweightDecoding ? 0 : rawFiducialBuffer.size()];
+    for (int i = 0; i < rawFiducials.length; i++)
     {
-      for (int i = 0; i < tagCount; i++)
-      {
-        int    baseIndex    = 11 + (i * valsPerFiducial);
-        int    id           = (int) poseArray[baseIndex];
-        double txnc         = poseArray[baseIndex + 1];
-        double tync         = poseArray[baseIndex + 2];
-        double ta           = poseArray[baseIndex + 3];
-        double distToCamera = poseArray[baseIndex + 4];
-        double distToRobot  = poseArray[baseIndex + 5];
-        double ambiguity    = poseArray[baseIndex + 6];
-        rawFiducials[i] = new RawFiducial(id, txnc, tync, ta, distToCamera, distToRobot, ambiguity);
-      }
+      rawFiducials[i] = rawFiducialBuffer.toRawFiducial(i);
     }
-    this.pose = pose;
+    this.pose = lightweightDecoding ? null : toPose3D(poseArray);
+    this.x = x;
+    this.y = y;
+    this.z = z;
+    this.roll = roll;
+    this.pitch = pitch;
+    this.yaw = yaw;
     this.timestampSeconds = adjustedTimestamp;
     this.latency = latency;
     this.tagCount = tagCount;
@@ -165,9 +425,33 @@ public class PoseEstimate
     this.avgTagDist = tagDist;
     this.avgTagArea = tagArea;
     this.rawFiducials = rawFiducials;
-    hasData = rawFiducials.length > 0;
+    hasData = rawFiducialBuffer.size() > 0;
 
-    return Optional.of(this);
+    return true;
+  }
+
+  /**
+   * Compute the standard deviations of this estimate for {@code PoseEstimator.addVisionMeasurement} without
+   * allocating a matrix.
+   *
+   * @param trustModel {@link VisionTrustModel} to rate the estimate with, e.g. {@link VisionTrustModel#MEGATAG2}.
+   * @param stdDevs    Caller-owned standard deviations [x meters, y meters, theta radians] to fill.
+   * @return False if the estimate has no AprilTags and should not be used.
+   */
+  public boolean getStdDevs(VisionTrustModel trustModel, Matrix<N3, N1> stdDevs)
+  {
+    return trustModel.computeStdDevs(this, stdDevs);
+  }
+
+  /**
+   * Get the AprilTags of this estimate as a {@link RawFiducialBuffer} view over the pose array, without creating a
+   * {@link RawFiducial} per tag. The view is updated in place by the next refresh.
+   *
+   * @return {@link RawFiducialBuffer} of the AprilTags used for this estimate.
+   */
+  public RawFiducialBuffer getRawFiducialBuffer()
+  {
+    return rawFiducialBuffer;
   }
 
   /**
@@ -182,9 +466,9 @@ public class PoseEstimate
       return 1;
     }
     double minTagAmbiguity = Double.MAX_VALUE;
-    for (RawFiducial tag : rawFiducials)
+    for (int i = 0; i < rawFiducialBuffer.size(); i++)
     {
-      minTagAmbiguity = Math.min(minTagAmbiguity, tag.ambiguity);
+      minTagAmbiguity = Math.min(minTagAmbiguity, rawFiducialBuffer.ambiguity(i));
     }
     return minTagAmbiguity;
   }
@@ -202,9 +486,9 @@ public class PoseEstimate
       return 1;
     }
     double maxTagAmbiguity = 0;
-    for (RawFiducial tag : rawFiducials)
+    for (int i = 0; i < rawFiducialBuffer.size(); i++)
     {
-      maxTagAmbiguity = Math.max(maxTagAmbiguity, tag.ambiguity);
+      maxTagAmbiguity = Math.max(maxTagAmbiguity, rawFiducialBuffer.ambiguity(i));
     }
     return maxTagAmbiguity;
   }
@@ -221,11 +505,11 @@ public class PoseEstimate
       return 1;
     }
     double ambiguitySum = 0;
-    for (RawFiducial tag : rawFiducials)
+    for (int i = 0; i < rawFiducialBuffer.size(); i++)
     {
-      ambiguitySum += tag.ambiguity;
+      ambiguitySum += rawFiducialBuffer.ambiguity(i);
     }
-    return ambiguitySum / rawFiducials.length;
+    return ambiguitySum / rawFiducialBuffer.size();
   }
 
   /**
@@ -265,5 +549,121 @@ public class PoseEstimate
     return str.toString();
   }
 
+  /**
+   * Immutable bot pose frame decoded by the background decoder, copied into the subscribed {@link PoseEstimate} on
+   * the robot thread.
+   */
+  private static final class Snapshot
+  {
+
+    /**
+     * Snapshot of an empty bot pose array.
+     */
+    static final Snapshot EMPTY = new Snapshot();
+
+    /**
+     * Decoded pose values.
+     */
+    private final Pose3d        pose;
+    private final double        x, y, z, roll, pitch, yaw;
+    /**
+     * Capture timestamp in FPGA seconds.
+     */
+    private final double        timestampSeconds;
+    /**
+     * Pose statistics.
+     */
+    private final double        latency, tagSpan, avgTagDist, avgTagArea;
+    private final int           tagCount;
+    /**
+     * AprilTags; copied out so a caller never changes the snapshot.
+     */
+    private final RawFiducial[] rawFiducials;
+    /**
+     * Bot pose array the fiducials are read from, owned by this snapshot.
+     */
+    private final double[]      poseArray;
+    /**
+     * Number of fiducials in {@link #poseArray}.
+     */
+    private final int           fiducialCount;
+    /**
+     * Does the snapshot hold a pose?
+     */
+    private final boolean       valid;
+
+    /**
+     * Create the {@link #EMPTY} snapshot.
+     */
+    private Snapshot()
+    {
+      pose = null;
+      x = y = z = roll = pitch = yaw = 0;
+      timestampSeconds = latency = tagSpan = avgTagDist = avgTagArea = 0;
+      tagCount = 0;
+      rawFiducials = new RawFiducial[0];
+      poseArray = new double[0];
+      fiducialCount = 0;
+      valid = false;
+    }
 
+    /**
+     * Freeze a decoded {@link PoseEstimate}.
+     *
+     * @param decoded   {@link PoseEstimate} just decoded from the pose array.
+     * @param poseArray Bot pose array it was decoded from; not modified afterwards.
+     */
+    Snapshot(PoseEstimate decoded, double[] poseArray)
+    {
+      pose = decoded.pose;
+      x = decoded.x;
+      y = decoded.y;
+      z = decoded.z;
+      roll = decoded.roll;
+      pitch = decoded.pitch;
+      yaw = decoded.yaw;
+      timestampSeconds = decoded.timestampSeconds;
+      latency = decoded.latency;
+      tagCount = decoded.tagCount;
+      tagSpan = decoded.tagSpan;
+      avgTagDist = decoded.avgTagDist;
+      avgTagArea = decoded.avgTagArea;
+      rawFiducials = decoded.rawFiducials;
+      this.poseArray = poseArray;
+      fiducialCount = decoded.rawFiducialBuffer.size();
+      valid = true;
+    }
+
+    /**
+     * Copy the frame into a {@link PoseEstimate}.
+     *
+     * @param estimate {@link PoseEstimate} to fill.
+     * @return False for the {@link #EMPTY} snapshot.
+     */
+    boolean copyTo(PoseEstimate estimate)
+    {
+      if (!valid)
+      {
+        estimate.hasData = false;
+        return false;
+      }
+      estimate.pose = pose;
+      estimate.x = x;
+      estimate.y = y;
+      estimate.z = z;
+      estimate.roll = roll;
+      estimate.pitch = pitch;
+      estimate.yaw = yaw;
+      estimate.timestampSeconds = timestampSeconds;
+      estimate.latency = latency;
+      estimate.tagCount = tagCount;
+      estimate.tagSpan = tagSpan;
+      estimate.avgTagDist = avgTagDist;
+      estimate.avgTagArea = avgTagArea;
+      estimate.rawFiducials = rawFiducials.clone();
+      estimate.rawFiducialBuffer.wrap(poseArray, 11, fiducialCount);
+      estimate.hasData = fiducialCount > 0;
+      return true;
+    }
+  }
 }
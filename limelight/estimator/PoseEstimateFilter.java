@@ -0,0 +1,222 @@
+package limelight.estimator;
+
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * One stage of a {@link PoseEstimateFilterChain}. Each stage counts the estimates it tested and rejected.
+ * <p>
+ * The built-in stages only read the primitive fields and the {@link limelight.results.RawFiducialBuffer} of a
+ * {@link PoseEstimate}, so they work with lightweight decoding and do not allocate.
+ */
+public abstract class PoseEstimateFilter
+{
+
+  /**
+   * Name of the stage, used in {@link #toString()}.
+   */
+  private final String name;
+  /**
+   * Number of estimates tested by this stage.
+   */
+  private       long   testedCount   = 0;
+  /**
+   * Number of estimates rejected by this stage.
+   */
+  private       long   rejectedCount = 0;
+
+  /**
+   * Create a {@link PoseEstimateFilter}.
+   *
+   * @param name Name of the stage.
+   */
+  protected PoseEstimateFilter(String name)
+  {
+    this.name = name;
+  }
+
+  /**
+   * Should the estimate be kept?
+   *
+   * @param estimate {@link PoseEstimate} with data.
+   * @return True to pass the estimate to the next stage.
+   */
+  protected abstract boolean test(PoseEstimate estimate);
+
+  /**
+   * Called by the {@link PoseEstimateFilterChain} when an estimate passed every stage.
+   *
+   * @param estimate Accepted {@link PoseEstimate}.
+   */
+  protected void accepted(PoseEstimate estimate)
+  {
+  }
+
+  /**
+   * Test an estimate and update the counters.
+   *
+   * @param estimate {@link PoseEstimate} with data.
+   * @return True if the estimate passed this stage.
+   */
+  final boolean apply(PoseEstimate estimate)
+  {
+    testedCount++;
+    if (test(estimate))
+    {
+      return true;
+    }
+    rejectedCount++;
+    return false;
+  }
+
+  /**
+   * Number of estimates tested by this stage. Estimates rejected by an earlier stage are not tested.
+   *
+   * @return Tested estimate count.
+   */
+  public long getTestedCount()
+  {
+    return testedCount;
+  }
+
+  /**
+   * Number of estimates rejected by this stage.
+   *
+   * @return Rejected estimate count.
+   */
+  public long getRejectedCount()
+  {
+    return rejectedCount;
+  }
+
+  /**
+   * Reset the tested and rejected counters.
+   */
+  public void resetCounters()
+  {
+    testedCount = 0;
+    rejectedCount = 0;
+  }
+
+  @Override
+  public String toString()
+  {
+    return name + ": rejected " + rejectedCount + " of " + testedCount;
+  }
+
+  /**
+   * Reject estimates outside the field.
+   *
+   * @param fieldLengthMeters Field length (X) in meters.
+   * @param fieldWidthMeters  Field width (Y) in meters.
+   * @param marginMeters      Distance outside the field still accepted.
+   * @return {@link PoseEstimateFilter}.
+   */
+  public static PoseEstimateFilter fieldBounds(double fieldLengthMeters, double fieldWidthMeters, double marginMeters)
+  {
+    return new PoseEstimateFilter("Field bounds")
+    {
+      @Override
+      protected boolean test(PoseEstimate estimate)
+      {
+        return estimate.x >= -marginMeters && estimate.x <= fieldLengthMeters + marginMeters &&
+               estimate.y >= -marginMeters && estimate.y <= fieldWidthMeters + marginMeters;
+      }
+    };
+  }
+
+  /**
+   * Reject estimates in which any AprilTag is more ambiguous than the limit.
+   *
+   * @param maxAmbiguity Highest accepted tag ambiguity [0,1].
+   * @return {@link PoseEstimateFilter}.
+   */
+  public static PoseEstimateFilter maxAmbiguity(double maxAmbiguity)
+  {
+    return new PoseEstimateFilter("Max ambiguity")
+    {
+      @Override
+      protected boolean test(PoseEstimate estimate)
+      {
+        return estimate.getMaxTagAmbiguity() <= maxAmbiguity;
+      }
+    };
+  }
+
+  /**
+   * Reject estimates further than the limit from the previously accepted estimate. The first estimate, and any
+   * estimate after the previous one is older than the reset time, is accepted so the filter can recover from a bad
+   * reference.
+   *
+   * @param maxJumpMeters Largest accepted distance from the previous accepted estimate in meters.
+   * @param resetSeconds  Age of the previous accepted estimate after which any estimate is accepted.
+   * @return {@link PoseEstimateFilter}.
+   */
+  public static PoseEstimateFilter maxJump(double maxJumpMeters, double resetSeconds)
+  {
+    return new PoseEstimateFilter("Max jump")
+    {
+      private double lastX         = 0;
+      private double lastY         = 0;
+      private double lastTimestamp = Double.NaN;
+
+      @Override
+      protected boolean test(PoseEstimate estimate)
+      {
+        if (Double.isNaN(lastTimestamp) || Math.abs(estimate.timestampSeconds - lastTimestamp) > resetSeconds)
+        {
+          return true;
+        }
+        double dx = estimate.x - lastX;
+        double dy = estimate.y - lastY;
+        return dx * dx + dy * dy <= maxJumpMeters * maxJumpMeters;
+      }
+
+      @Override
+      protected void accepted(PoseEstimate estimate)
+      {
+        lastX = estimate.x;
+        lastY = estimate.y;
+        lastTimestamp = estimate.timestampSeconds;
+      }
+    };
+  }
+
+  /**
+   * Reject MegaTag2 estimates while the robot rotates faster than the limit, since MegaTag2 relies on the robot
+   * orientation sent to the {@link limelight.Limelight}. MegaTag1 estimates always pass.
+   *
+   * @param yawRateDegreesPerSecond Supplier of the gyro yaw rate in degrees per second.
+   * @param maxDegreesPerSecond     Highest accepted absolute yaw rate in degrees per second.
+   * @return {@link PoseEstimateFilter}.
+   */
+  public static PoseEstimateFilter maxYawRate(DoubleSupplier yawRateDegreesPerSecond, double maxDegreesPerSecond)
+  {
+    return new PoseEstimateFilter("Max yaw rate")
+    {
+      @Override
+      protected boolean test(PoseEstimate estimate)
+      {
+        return !estimate.isMegaTag2 || Math.abs(yawRateDegreesPerSecond.getAsDouble()) <= maxDegreesPerSecond;
+      }
+    };
+  }
+
+  /**
+   * Reject estimates with fewer AprilTags than the limit.
+   *
+   * @param minTagCount Lowest accepted tag count.
+   * @return {@link PoseEstimateFilter}.
+   */
+  public static PoseEstimateFilter minTagCount(int minTagCount)
+  {
+    return new PoseEstimateFilter("Min tag count")
+    {
+      @Override
+      protected boolean test(PoseEstimate estimate)
+      {
+        return estimate.tagCount >= minTagCount;
+      }
+    };
+  }
+}
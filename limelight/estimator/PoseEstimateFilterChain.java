@@ -0,0 +1,146 @@
+package limelight.estimator;
+
+
+import java.util.List;
+
+/**
+ * Ordered chain of {@link PoseEstimateFilter}s that gates {@link PoseEstimate}s before they reach the drivetrain pose
+ * estimator. The stages run in order and the chain stops at the first rejection, so put the cheapest and most
+ * selective stages first.
+ * <p>
+ * Stateful stages such as {@link PoseEstimateFilter#maxJump(double, double)} remember the last accepted estimate, so
+ * use one chain per {@link limelight.Limelight}.
+ * <pre>{@code
+ * PoseEstimateFilterChain filters = new PoseEstimateFilterChain(
+ *     PoseEstimateFilter.minTagCount(1),
+ *     PoseEstimateFilter.fieldBounds(16.54, 8.21, 0.5),
+ *     PoseEstimateFilter.maxAmbiguity(0.3),
+ *     PoseEstimateFilter.maxJump(1.0, 0.5));
+ * }</pre>
+ */
+public class PoseEstimateFilterChain
+{
+
+  /**
+   * Stages, in order.
+   */
+  private final PoseEstimateFilter[] filters;
+  /**
+   * Number of estimates passed to {@link #accept(PoseEstimate)}.
+   */
+  private       long                 testedCount   = 0;
+  /**
+   * Number of estimates rejected because they had no data.
+   */
+  private       long                 noDataCount   = 0;
+  /**
+   * Number of estimates accepted by every stage.
+   */
+  private       long                 acceptedCount = 0;
+
+  /**
+   * Create a {@link PoseEstimateFilterChain}.
+   *
+   * @param filters Stages, in the order they run.
+   */
+  public PoseEstimateFilterChain(PoseEstimateFilter... filters)
+  {
+    this.filters = filters.clone();
+  }
+
+  /**
+   * Run an estimate through the chain. Estimates without data are rejected before the first stage.
+   *
+   * @param estimate {@link PoseEstimate} to check.
+   * @return True if every stage accepted the estimate.
+   */
+  public boolean accept(PoseEstimate estimate)
+  {
+    testedCount++;
+    if (!estimate.hasData)
+    {
+      noDataCount++;
+      return false;
+    }
+    for (PoseEstimateFilter filter : filters)
+    {
+      if (!filter.apply(estimate))
+      {
+        return false;
+      }
+    }
+    for (PoseEstimateFilter filter : filters)
+    {
+      filter.accepted(estimate);
+    }
+    acceptedCount++;
+    return true;
+  }
+
+  /**
+   * Get the stages, in order, to read their rejection counters.
+   *
+   * @return Stages of the chain.
+   */
+  public List<PoseEstimateFilter> getFilters()
+  {
+    return List.of(filters);
+  }
+
+  /**
+   * Number of estimates passed to {@link #accept(PoseEstimate)}.
+   *
+   * @return Tested estimate count.
+   */
+  public long getTestedCount()
+  {
+    return testedCount;
+  }
+
+  /**
+   * Number of estimates rejected because they had no data.
+   *
+   * @return Estimates without data.
+   */
+  public long getNoDataCount()
+  {
+    return noDataCount;
+  }
+
+  /**
+   * Number of estimates accepted by every stage.
+   *
+   * @return Accepted estimate count.
+   */
+  public long getAcceptedCount()
+  {
+    return acceptedCount;
+  }
+
+  /**
+   * Reset the counters of the chain and of every stage.
+   */
+  public void resetCounters()
+  {
+    testedCount = 0;
+    noDataCount = 0;
+    acceptedCount = 0;
+    for (PoseEstimateFilter filter : filters)
+    {
+      filter.resetCounters();
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder str = new StringBuilder();
+    str.append("Accepted ").append(acceptedCount).append(" of ").append(testedCount)
+       .append(", no data ").append(noDataCount);
+    for (PoseEstimateFilter filter : filters)
+    {
+      str.append("\n  ").append(filter);
+    }
+    return str.toString();
+  }
+}
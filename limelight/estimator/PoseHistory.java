@@ -0,0 +1,363 @@
+package limelight.estimator;
+
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * Fixed-capacity history of accepted {@link PoseEstimate}s of one {@link limelight.Limelight}, for latency
+ * compensated lookups such as "where did this camera think the robot was at t = 12.345?".
+ * <p>
+ * Entries are kept in timestamp order in parallel primitive arrays used as a ring buffer, so inserting does not
+ * allocate and lookups are a binary search followed by a linear interpolation. When full, the oldest entry is
+ * overwritten. The history is not thread safe and is meant to be used from the robot loop.
+ */
+public class PoseHistory
+{
+
+  /**
+   * Default number of entries, about two seconds of a {@link limelight.Limelight} at 50 frames per second.
+   */
+  public static final int DEFAULT_CAPACITY = 100;
+
+  /**
+   * Timestamps in seconds.
+   */
+  private final double[] timestamps;
+  /**
+   * Robot X in meters.
+   */
+  private final double[] xs;
+  /**
+   * Robot Y in meters.
+   */
+  private final double[] ys;
+  /**
+   * Robot heading in radians.
+   */
+  private final double[] thetas;
+  /**
+   * X standard deviation in meters.
+   */
+  private final double[] xStdDevs;
+  /**
+   * Y standard deviation in meters.
+   */
+  private final double[] yStdDevs;
+  /**
+   * Heading standard deviation in radians.
+   */
+  private final double[] thetaStdDevs;
+  /**
+   * Physical index of the oldest entry.
+   */
+  private       int      head = 0;
+  /**
+   * Number of entries.
+   */
+  private       int      size = 0;
+
+  /**
+   * Create an empty {@link PoseHistory}.
+   *
+   * @param capacity Maximum number of entries.
+   */
+  public PoseHistory(int capacity)
+  {
+    if (capacity < 1)
+    {
+      throw new IllegalArgumentException("Pose history capacity must be positive");
+    }
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    thetas = new double[capacity];
+    xStdDevs = new double[capacity];
+    yStdDevs = new double[capacity];
+    thetaStdDevs = new double[capacity];
+  }
+
+  /**
+   * Add an accepted {@link PoseEstimate} with its standard deviations.
+   *
+   * @param estimate {@link PoseEstimate} to record.
+   * @param stdDevs  Standard deviations [x meters, y meters, theta radians].
+   */
+  public void add(PoseEstimate estimate, Matrix<N3, N1> stdDevs)
+  {
+    add(estimate.timestampSeconds, estimate.x, estimate.y, estimate.yaw,
+        stdDevs.get(0, 0), stdDevs.get(1, 0), stdDevs.get(2, 0));
+  }
+
+  /**
+   * Add a pose. Poses are normally added in timestamp order; an older pose is inserted in place, and a pose with the
+   * timestamp of an existing entry replaces it. A pose older than a full history is dropped.
+   *
+   * @param timestampSeconds Timestamp in seconds.
+   * @param x                Robot X in meters.
+   * @param y                Robot Y in meters.
+   * @param theta            Robot heading in radians.
+   * @param xStdDev          X standard deviation in meters.
+   * @param yStdDev          Y standard deviation in meters.
+   * @param thetaStdDev      Heading standard deviation in radians.
+   */
+  public void add(double timestampSeconds, double x, double y, double theta,
+                  double xStdDev, double yStdDev, double thetaStdDev)
+  {
+    int capacity = timestamps.length;
+    // Logical position of the new entry; the common case is appending after the newest entry.
+    int position = size;
+    if (size > 0 && timestampSeconds <= timestamps[physical(size - 1)])
+    {
+      position = firstAtOrAfter(timestampSeconds);
+      if (timestamps[physical(position)] == timestampSeconds)
+      {
+        set(physical(position), timestampSeconds, x, y, theta, xStdDev, yStdDev, thetaStdDev);
+        return;
+      }
+      if (position == 0 && size == capacity)
+      {
+        return;
+      }
+    }
+    if (size == capacity)
+    {
+      // Drop the oldest entry to make room.
+      head = (head + 1) % capacity;
+      size--;
+      position--;
+    }
+    for (int i = size; i > position; i--)
+    {
+      move(physical(i - 1), physical(i));
+    }
+    set(physical(position), timestampSeconds, x, y, theta, xStdDev, yStdDev, thetaStdDev);
+    size++;
+  }
+
+  /**
+   * Interpolate the history at a timestamp without allocating.
+   *
+   * @param timestampSeconds Timestamp in seconds, between {@link #getOldestTimestamp()} and
+   *                         {@link #getNewestTimestamp()}.
+   * @param sample           {@link Sample} to fill.
+   * @return False if the timestamp is outside the history; {@code sample} is then left unchanged.
+   */
+  public boolean sample(double timestampSeconds, Sample sample)
+  {
+    if (size == 0 || timestampSeconds < timestamps[head] || timestampSeconds > timestamps[physical(size - 1)])
+    {
+      return false;
+    }
+    int after = physical(firstAtOrAfter(timestampSeconds));
+    if (timestamps[after] == timestampSeconds)
+    {
+      sample.set(timestampSeconds, xs[after], ys[after], thetas[after],
+                 xStdDevs[after], yStdDevs[after], thetaStdDevs[after]);
+      return true;
+    }
+    int    before = (after - 1 + timestamps.length) % timestamps.length;
+    double t      = (timestampSeconds - timestamps[before]) / (timestamps[after] - timestamps[before]);
+    sample.set(timestampSeconds,
+               lerp(xs[before], xs[after], t),
+               lerp(ys[before], ys[after], t),
+               MathUtil.angleModulus(thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * t),
+               lerp(xStdDevs[before], xStdDevs[after], t),
+               lerp(yStdDevs[before], yStdDevs[after], t),
+               lerp(thetaStdDevs[before], thetaStdDevs[after], t));
+    return true;
+  }
+
+  /**
+   * Number of entries.
+   *
+   * @return Entry count.
+   */
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Maximum number of entries.
+   *
+   * @return Capacity.
+   */
+  public int capacity()
+  {
+    return timestamps.length;
+  }
+
+  /**
+   * Timestamp of the oldest entry.
+   *
+   * @return Oldest timestamp in seconds, or NaN if empty.
+   */
+  public double getOldestTimestamp()
+  {
+    return size == 0 ? Double.NaN : timestamps[head];
+  }
+
+  /**
+   * Timestamp of the newest entry.
+   *
+   * @return Newest timestamp in seconds, or NaN if empty.
+   */
+  public double getNewestTimestamp()
+  {
+    return size == 0 ? Double.NaN : timestamps[physical(size - 1)];
+  }
+
+  /**
+   * Remove every entry.
+   */
+  public void clear()
+  {
+    head = 0;
+    size = 0;
+  }
+
+  /**
+   * Binary search for the first entry at or after a timestamp.
+   *
+   * @param timestampSeconds Timestamp in seconds, not after the newest entry.
+   * @return Logical index of the entry.
+   */
+  private int firstAtOrAfter(double timestampSeconds)
+  {
+    int low  = 0;
+    int high = size - 1;
+    while (low < high)
+    {
+      int middle = (low + high) >>> 1;
+      if (timestamps[physical(middle)] < timestampSeconds)
+      {
+        low = middle + 1;
+      } else
+      {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Convert a logical index, 0 being the oldest entry, into an array index.
+   *
+   * @param index Logical index.
+   * @return Array index.
+   */
+  private int physical(int index)
+  {
+    return (head + index) % timestamps.length;
+  }
+
+  /**
+   * Copy an entry.
+   *
+   * @param from Source array index.
+   * @param to   Destination array index.
+   */
+  private void move(int from, int to)
+  {
+    set(to, timestamps[from], xs[from], ys[from], thetas[from], xStdDevs[from], yStdDevs[from], thetaStdDevs[from]);
+  }
+
+  /**
+   * Write an entry.
+   *
+   * @param index            Array index.
+   * @param timestampSeconds Timestamp in seconds.
+   * @param x                Robot X in meters.
+   * @param y                Robot Y in meters.
+   * @param theta            Robot heading in radians.
+   * @param xStdDev          X standard deviation in meters.
+   * @param yStdDev          Y standard deviation in meters.
+   * @param thetaStdDev      Heading standard deviation in radians.
+   */
+  private void set(int index, double timestampSeconds, double x, double y, double theta,
+                   double xStdDev, double yStdDev, double thetaStdDev)
+  {
+    timestamps[index] = timestampSeconds;
+    xs[index] = x;
+    ys[index] = y;
+    thetas[index] = theta;
+    xStdDevs[index] = xStdDev;
+    yStdDevs[index] = yStdDev;
+    thetaStdDevs[index] = thetaStdDev;
+  }
+
+  /**
+   * Linear interpolation.
+   *
+   * @param a Start value.
+   * @param b End value.
+   * @param t Fraction [0,1].
+   * @return Interpolated value.
+   */
+  private static double lerp(double a, double b, double t)
+  {
+    return a + (b - a) * t;
+  }
+
+  /**
+   * Reusable result of {@link PoseHistory#sample(double, Sample)}.
+   */
+  public static class Sample
+  {
+
+    /**
+     * Timestamp in seconds.
+     */
+    public double timestampSeconds;
+    /**
+     * Robot X in meters.
+     */
+    public double x;
+    /**
+     * Robot Y in meters.
+     */
+    public double y;
+    /**
+     * Robot heading in radians.
+     */
+    public double theta;
+    /**
+     * X standard deviation in meters.
+     */
+    public double xStdDev;
+    /**
+     * Y standard deviation in meters.
+     */
+    public double yStdDev;
+    /**
+     * Heading standard deviation in radians.
+     */
+    public double thetaStdDev;
+
+    /**
+     * Fill the sample.
+     *
+     * @param timestampSeconds Timestamp in seconds.
+     * @param x                Robot X in meters.
+     * @param y                Robot Y in meters.
+     * @param theta            Robot heading in radians.
+     * @param xStdDev          X standard deviation in meters.
+     * @param yStdDev          Y standard deviation in meters.
+     * @param thetaStdDev      Heading standard deviation in radians.
+     */
+    void set(double timestampSeconds, double x, double y, double theta,
+             double xStdDev, double yStdDev, double thetaStdDev)
+    {
+      this.timestampSeconds = timestampSeconds;
+      this.x = x;
+      this.y = y;
+      this.theta = theta;
+      this.xStdDev = xStdDev;
+      this.yStdDev = yStdDev;
+      this.thetaStdDev = thetaStdDev;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package limelight.estimator;
+
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * Model of how much a {@link PoseEstimate} can be trusted, expressed as the standard deviations passed to
+ * {@code PoseEstimator.addVisionMeasurement}.
+ * <p>
+ * Implementations write into a caller-provided vector so that no matrix is allocated per frame.
+ */
+@FunctionalInterface
+public interface VisionTrustModel
+{
+
+  /**
+   * Built-in MegaTag1 profile; trust falls with distance and ambiguity, and single-tag poses are trusted less.
+   */
+  VisionTrustModel MEGATAG1 = DistanceTrustModel.MEGATAG1;
+  /**
+   * Built-in MegaTag2 profile; ambiguity is ignored and the gyro-derived rotation is not trusted.
+   */
+  VisionTrustModel MEGATAG2 = DistanceTrustModel.MEGATAG2;
+
+  /**
+   * Compute the standard deviations of a {@link PoseEstimate}.
+   *
+   * @param estimate {@link PoseEstimate} to rate.
+   * @param stdDevs  Standard deviations [x meters, y meters, theta radians] to fill.
+   * @return False if the estimate has no AprilTags and should not be used; {@code stdDevs} is then left unchanged.
+   */
+  boolean computeStdDevs(PoseEstimate estimate, Matrix<N3, N1> stdDevs);
+
+  /**
+   * Get the built-in profile for MegaTag1 or MegaTag2 estimates.
+   *
+   * @param megatag2 MegaTag2 estimates.
+   * @return {@link #MEGATAG2} or {@link #MEGATAG1}.
+   */
+  static VisionTrustModel forMegaTag(boolean megatag2)
+  {
+    return megatag2 ? MEGATAG2 : MEGATAG1;
+  }
+}
@@ -0,0 +1,249 @@
+package limelight.results;
+
+import limelight.Limelight;
+
+/**
+ * Reusable view over the {@link Limelight}'s raw neural detector array, 12 values per detection, which reads each value
+ * straight from the backing array instead of creating a {@link RawDetection} per detection.
+ * <p>
+ * The view is only valid until it is wrapped around the next array.
+ */
+public class RawDetectionBuffer
+{
+
+  /**
+   * Number of values per detection in the backing array.
+   */
+  public static final int VALUES_PER_DETECTION = 12;
+
+  /**
+   * Backing array.
+   */
+  private double[] data  = new double[0];
+  /**
+   * Number of detections.
+   */
+  private int      count = 0;
+
+  /**
+   * Create an empty {@link RawDetectionBuffer}.
+   */
+  public RawDetectionBuffer()
+  {
+  }
+
+  /**
+   * Point this view at a "rawdetections" array. The array is not copied, and the view is emptied if the array length
+   * is not a multiple of {@link #VALUES_PER_DETECTION}.
+   *
+   * @param data "rawdetections" array.
+   * @return {@link RawDetectionBuffer} for chaining.
+   */
+  public RawDetectionBuffer wrap(double[] data)
+  {
+    this.data = data;
+    this.count = data.length % VALUES_PER_DETECTION == 0 ? data.length / VALUES_PER_DETECTION : 0;
+    return this;
+  }
+
+  /**
+   * Number of detections in view.
+   *
+   * @return Detection count.
+   */
+  public int size()
+  {
+    return count;
+  }
+
+  /**
+   * Get a value of a detection.
+   *
+   * @param index Detection index.
+   * @param field Value index within the detection.
+   * @return Value.
+   */
+  private double get(int index, int field)
+  {
+    if (index < 0 || index >= count)
+    {
+      throw new IndexOutOfBoundsException("Detection " + index + " of " + count);
+    }
+    return data[index * VALUES_PER_DETECTION + field];
+  }
+
+  /**
+   * Neural class ID of the detection.
+   *
+   * @param index Detection index.
+   * @return Class ID.
+   */
+  public int classId(int index)
+  {
+    return (int) get(index, 0);
+  }
+
+  /**
+   * Horizontal offset from the principal pixel to the detection.
+   *
+   * @param index Detection index.
+   * @return Horizontal offset in degrees.
+   */
+  public double txnc(int index)
+  {
+    return get(index, 1);
+  }
+
+  /**
+   * Vertical offset from the principal pixel to the detection.
+   *
+   * @param index Detection index.
+   * @return Vertical offset in degrees.
+   */
+  public double tync(int index)
+  {
+    return get(index, 2);
+  }
+
+  /**
+   * Detection area as percent of the image.
+   *
+   * @param index Detection index.
+   * @return Detection area.
+   */
+  public double ta(int index)
+  {
+    return get(index, 3);
+  }
+
+  /**
+   * X coordinate of a corner of the detection.
+   *
+   * @param index  Detection index.
+   * @param corner Corner 0-3.
+   * @return Corner X in pixels.
+   */
+  public double cornerX(int index, int corner)
+  {
+    if (corner < 0 || corner > 3)
+    {
+      throw new IndexOutOfBoundsException("Corner " + corner);
+    }
+    return get(index, 4 + corner * 2);
+  }
+
+  /**
+   * Y coordinate of a corner of the detection.
+   *
+   * @param index  Detection index.
+   * @param corner Corner 0-3.
+   * @return Corner Y in pixels.
+   */
+  public double cornerY(int index, int corner)
+  {
+    if (corner < 0 || corner > 3)
+    {
+      throw new IndexOutOfBoundsException("Corner " + corner);
+    }
+    return get(index, 5 + corner * 2);
+  }
+
+  /**
+   * Find the detection with the largest area.
+   *
+   * @return Detection index, or -1 if there are no detections.
+   */
+  public int indexOfLargestArea()
+  {
+    int    largest = -1;
+    double area    = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++)
+    {
+      if (ta(i) > area)
+      {
+        area = ta(i);
+        largest = i;
+      }
+    }
+    return largest;
+  }
+
+  /**
+   * Find the detection of a class with the largest area.
+   *
+   * @param classId Neural class ID.
+   * @return Detection index, or -1 if there is no detection of that class.
+   */
+  public int indexOfLargestArea(int classId)
+  {
+    int    largest = -1;
+    double area    = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++)
+    {
+      if (classId(i) == classId && ta(i) > area)
+      {
+        area = ta(i);
+        largest = i;
+      }
+    }
+    return largest;
+  }
+
+  /**
+   * Count the detections of a class.
+   *
+   * @param classId Neural class ID.
+   * @return Number of detections of that class.
+   */
+  public int countOfClass(int classId)
+  {
+    int matches = 0;
+    for (int i = 0; i < count; i++)
+    {
+      if (classId(i) == classId)
+      {
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Collect the indices of the detections of a class into a caller-owned array.
+   *
+   * @param classId Neural class ID.
+   * @param indices Array to fill with detection indices, in order.
+   * @return Number of detections of that class; only the first {@code indices.length} are written.
+   */
+  public int indicesOfClass(int classId, int[] indices)
+  {
+    int matches = 0;
+    for (int i = 0; i < count; i++)
+    {
+      if (classId(i) == classId)
+      {
+        if (matches < indices.length)
+        {
+          indices[matches] = i;
+        }
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * Copy a detection into a new {@link RawDetection}.
+   *
+   * @param index Detection index.
+   * @return {@link RawDetection}.
+   */
+  public RawDetection toRawDetection(int index)
+  {
+    return new RawDetection(classId(index), txnc(index), tync(index), ta(index),
+                            cornerX(index, 0), cornerY(index, 0),
+                            cornerX(index, 1), cornerY(index, 1),
+                            cornerX(index, 2), cornerY(index, 2),
+                            cornerX(index, 3), cornerY(index, 3));
+  }
+}
@@ -0,0 +1,207 @@
+package limelight.results;
+
+import limelight.Limelight;
+
+/**
+ * Reusable view over the {@link Limelight}'s raw fiducial array, 7 values per AprilTag, which reads each value
+ * straight from the backing array instead of creating a {@link RawFiducial} per tag.
+ * <p>
+ * The view is only valid until it is wrapped around the next array.
+ */
+public class RawFiducialBuffer
+{
+
+  /**
+   * Number of values per fiducial in the backing array.
+   */
+  public static final int VALUES_PER_FIDUCIAL = 7;
+
+  /**
+   * Backing array.
+   */
+  private double[] data   = new double[0];
+  /**
+   * Index of the first fiducial in {@link #data}.
+   */
+  private int      offset = 0;
+  /**
+   * Number of fiducials.
+   */
+  private int      count  = 0;
+
+  /**
+   * Create an empty {@link RawFiducialBuffer}.
+   */
+  public RawFiducialBuffer()
+  {
+  }
+
+  /**
+   * Point this view at a raw fiducial array. The array is not copied.
+   *
+   * @param data   Array holding the fiducials.
+   * @param offset Index of the first fiducial value.
+   * @param count  Number of fiducials; the view is emptied if the array is too short.
+   * @return {@link RawFiducialBuffer} for chaining.
+   */
+  public RawFiducialBuffer wrap(double[] data, int offset, int count)
+  {
+    if (count < 0 || offset < 0 || data.length < offset + count * VALUES_PER_FIDUCIAL)
+    {
+      count = 0;
+    }
+    this.data = data;
+    this.offset = offset;
+    this.count = count;
+    return this;
+  }
+
+  /**
+   * Point this view at a whole "rawfiducials" array. The view is emptied if the array length is not a multiple of
+   * {@link #VALUES_PER_FIDUCIAL}.
+   *
+   * @param data "rawfiducials" array.
+   * @return {@link RawFiducialBuffer} for chaining.
+   */
+  public RawFiducialBuffer wrap(double[] data)
+  {
+    if (data.length % VALUES_PER_FIDUCIAL != 0)
+    {
+      return wrap(data, 0, 0);
+    }
+    return wrap(data, 0, data.length / VALUES_PER_FIDUCIAL);
+  }
+
+  /**
+   * Number of fiducials in view.
+   *
+   * @return Fiducial count.
+   */
+  public int size()
+  {
+    return count;
+  }
+
+  /**
+   * Get a value of a fiducial.
+   *
+   * @param index Fiducial index.
+   * @param field Value index within the fiducial.
+   * @return Value.
+   */
+  private double get(int index, int field)
+  {
+    if (index < 0 || index >= count)
+    {
+      throw new IndexOutOfBoundsException("Fiducial " + index + " of " + count);
+    }
+    return data[offset + index * VALUES_PER_FIDUCIAL + field];
+  }
+
+  /**
+   * AprilTag ID
+   *
+   * @param index Fiducial index.
+   * @return AprilTag ID.
+   */
+  public int id(int index)
+  {
+    return (int) get(index, 0);
+  }
+
+  /**
+   * Tag X coordinate in the image.
+   *
+   * @param index Fiducial index.
+   * @return Horizontal offset from the principal pixel in degrees.
+   */
+  public double txnc(int index)
+  {
+    return get(index, 1);
+  }
+
+  /**
+   * Tag Y coordinate in the image.
+   *
+   * @param index Fiducial index.
+   * @return Vertical offset from the principal pixel in degrees.
+   */
+  public double tync(int index)
+  {
+    return get(index, 2);
+  }
+
+  /**
+   * Tag area as percent of the image.
+   *
+   * @param index Fiducial index.
+   * @return Tag area.
+   */
+  public double ta(int index)
+  {
+    return get(index, 3);
+  }
+
+  /**
+   * Distance to camera in Meters
+   *
+   * @param index Fiducial index.
+   * @return Distance to camera.
+   */
+  public double distToCamera(int index)
+  {
+    return get(index, 4);
+  }
+
+  /**
+   * Distance to robot in Meters
+   *
+   * @param index Fiducial index.
+   * @return Distance to robot.
+   */
+  public double distToRobot(int index)
+  {
+    return get(index, 5);
+  }
+
+  /**
+   * Ambiguity as a percentage [0,1]
+   *
+   * @param index Fiducial index.
+   * @return Ambiguity.
+   */
+  public double ambiguity(int index)
+  {
+    return get(index, 6);
+  }
+
+  /**
+   * Find a fiducial by AprilTag ID.
+   *
+   * @param id AprilTag ID.
+   * @return Fiducial index, or -1 if the tag is not in view.
+   */
+  public int indexOf(int id)
+  {
+    for (int i = 0; i < count; i++)
+    {
+      if (id(i) == id)
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Copy a fiducial into a new {@link RawFiducial}.
+   *
+   * @param index Fiducial index.
+   * @return {@link RawFiducial}.
+   */
+  public RawFiducial toRawFiducial(int index)
+  {
+    return new RawFiducial(id(index), txnc(index), tync(index), ta(index), distToCamera(index), distToRobot(index),
+                           ambiguity(index));
+  }
+}
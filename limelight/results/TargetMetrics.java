@@ -0,0 +1,138 @@
+package limelight.results;
+
+import limelight.Limelight;
+
+/**
+ * Typed view of the {@link Limelight}'s "t2d" array, the 2D targeting metrics of the primary target.
+ */
+public class TargetMetrics
+{
+
+  /**
+   * Number of values in the "t2d" array.
+   */
+  public static final int T2D_LENGTH = 17;
+
+  /**
+   * Is a valid target present?
+   */
+  public boolean targetValid                  = false;
+  /**
+   * Number of targets.
+   */
+  public int     targetCount                  = 0;
+  /**
+   * Pipeline latency in milliseconds.
+   */
+  public double  targetLatency                = 0;
+  /**
+   * Capture latency in milliseconds.
+   */
+  public double  captureLatency               = 0;
+  /**
+   * Horizontal offset from the crosshair to the target in degrees.
+   */
+  public double  tx                           = 0;
+  /**
+   * Vertical offset from the crosshair to the target in degrees.
+   */
+  public double  ty                           = 0;
+  /**
+   * Horizontal offset from the principal pixel to the target in degrees.
+   */
+  public double  txnc                         = 0;
+  /**
+   * Vertical offset from the principal pixel to the target in degrees.
+   */
+  public double  tync                         = 0;
+  /**
+   * Target area as a percentage of the image (0-100%).
+   */
+  public double  ta                           = 0;
+  /**
+   * AprilTag ID of the target.
+   */
+  public int     tid                          = 0;
+  /**
+   * Class index of the primary neural detector result.
+   */
+  public int     targetClassIndexDetector     = 0;
+  /**
+   * Class index of the neural classifier result.
+   */
+  public int     targetClassIndexClassifier   = 0;
+  /**
+   * Length of the long side of the target in pixels.
+   */
+  public double  targetLongSidePixels         = 0;
+  /**
+   * Length of the short side of the target in pixels.
+   */
+  public double  targetShortSidePixels        = 0;
+  /**
+   * Horizontal extent of the target in pixels.
+   */
+  public double  targetHorizontalExtentPixels = 0;
+  /**
+   * Vertical extent of the target in pixels.
+   */
+  public double  targetVerticalExtentPixels   = 0;
+  /**
+   * Skew of the target in degrees.
+   */
+  public double  targetSkewDegrees            = 0;
+
+  /**
+   * Create empty {@link TargetMetrics}.
+   */
+  public TargetMetrics()
+  {
+  }
+
+  /**
+   * Fill the metrics from a "t2d" array.
+   *
+   * @param t2d Array of {@value #T2D_LENGTH} values.
+   * @return False, leaving the metrics unchanged, if the array does not have {@value #T2D_LENGTH} values.
+   */
+  public boolean set(double[] t2d)
+  {
+    if (t2d.length != T2D_LENGTH)
+    {
+      return false;
+    }
+    targetValid = t2d[0] == 1.0;
+    targetCount = (int) t2d[1];
+    targetLatency = t2d[2];
+    captureLatency = t2d[3];
+    tx = t2d[4];
+    ty = t2d[5];
+    txnc = t2d[6];
+    tync = t2d[7];
+    ta = t2d[8];
+    tid = (int) t2d[9];
+    targetClassIndexDetector = (int) t2d[10];
+    targetClassIndexClassifier = (int) t2d[11];
+    targetLongSidePixels = t2d[12];
+    targetShortSidePixels = t2d[13];
+    targetHorizontalExtentPixels = t2d[14];
+    targetVerticalExtentPixels = t2d[15];
+    targetSkewDegrees = t2d[16];
+    return true;
+  }
+
+  @Override
+  public String toString()
+  {
+    StringBuilder str = new StringBuilder(300);
+    str.append(String.format("Target valid %b count %d tid %d%n", targetValid, targetCount, tid));
+    str.append(String.format(" Latency pipeline %.2f capture %.2f%n", targetLatency, captureLatency));
+    str.append(String.format(" tx %.2f ty %.2f txnc %.2f tync %.2f ta %.2f%n", tx, ty, txnc, tync, ta));
+    str.append(String.format(" Class index detector %d classifier %d%n", targetClassIndexDetector,
+                             targetClassIndexClassifier));
+    str.append(String.format(" Sides long %.1f short %.1f extent h %.1f v %.1f skew %.2f%n", targetLongSidePixels,
+                             targetShortSidePixels, targetHorizontalExtentPixels, targetVerticalExtentPixels,
+                             targetSkewDegrees));
+    return str.toString();
+  }
+}
@@ -0,0 +1,57 @@
+package limelight.results;
+
+import limelight.Limelight;
+
+/**
+ * One frame of the {@link Limelight}'s 2D targeting data, decoded from a single read of the "t2d" array so every value
+ * comes from the same camera frame.
+ */
+public class TargetSnapshot
+{
+
+  /**
+   * Targeting metrics of the frame.
+   */
+  public final TargetMetrics metrics          = new TargetMetrics();
+  /**
+   * NetworkTables receive time of the "t2d" array in microseconds.
+   */
+  public       long          ntTimestamp      = 0;
+  /**
+   * Capture timestamp in FPGA seconds, adjusted for the pipeline and capture latency.
+   */
+  public       double        timestampSeconds = 0;
+
+  /**
+   * Create an empty {@link TargetSnapshot}.
+   */
+  public TargetSnapshot()
+  {
+  }
+
+  /**
+   * Fill the snapshot from a "t2d" array.
+   *
+   * @param t2d              Array of {@value TargetMetrics#T2D_LENGTH} values.
+   * @param ntTimestamp      NetworkTables receive time of the array in microseconds.
+   * @param timestampSeconds Capture timestamp in FPGA seconds.
+   * @return False, leaving the snapshot unchanged, if the array does not have {@value TargetMetrics#T2D_LENGTH}
+   *     values.
+   */
+  public boolean set(double[] t2d, long ntTimestamp, double timestampSeconds)
+  {
+    if (!metrics.set(t2d))
+    {
+      return false;
+    }
+    this.ntTimestamp = ntTimestamp;
+    this.timestampSeconds = timestampSeconds;
+    return true;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("Target snapshot at %.3f s%n", timestampSeconds) + metrics;
+  }
+}
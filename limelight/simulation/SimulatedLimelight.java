@@ -0,0 +1,789 @@
+package limelight.simulation;
+
+
+import static limelight.structures.LimelightUtils.pose3dToArray;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.Timer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import limelight.Limelight;
+
+/**
+ * Simulated {@link Limelight} that publishes the NetworkTables traffic of a real camera looking at AprilTags.
+ * <p>
+ * Every frame, the tags of an {@link AprilTagFieldLayout} in front of the camera, inside its field of view and facing
+ * it are found from the robot pose, and "getpipe", "tv", "tx", "ty", "ta", "tl", "cl", "hb", "rawfiducials",
+ * "botpose", "botpose_wpiblue", "botpose_wpired", the MegaTag2 "botpose_orb*" entries and "json" are published after
+ * the configured latency, with Gaussian noise on the angles and poses. A {@link Limelight} with the same name then
+ * runs unchanged in simulation, so several cameras can be load tested without hardware.
+ * <pre>{@code
+ * SimulatedLimelight sim = new SimulatedLimelight("limelight", drivetrain::getPose, robotToCamera,
+ *                                                 AprilTagFieldLayout.loadField(AprilTagFields.kDefaultField));
+ * // simulationPeriodic()
+ * sim.update();
+ * }</pre>
+ * The target-space arrays of "json" use WPILib axes (X forward, Y left, Z up) for every space.
+ */
+public class SimulatedLimelight implements AutoCloseable
+{
+
+  /**
+   * Side of a 36h11 AprilTag in meters.
+   */
+  public static final double TAG_SIZE_METERS   = 0.1651;
+  /**
+   * Number of values per tag in "rawfiducials".
+   */
+  public static final int    RAW_FIDUCIAL_SIZE = 7;
+  /**
+   * Number of values before the tags in "botpose" arrays.
+   */
+  public static final int    BOTPOSE_SIZE      = 11;
+
+  /**
+   * Robot pose on the field, blue origin.
+   */
+  private final    Supplier<Pose2d>     robotPose;
+  /**
+   * Camera pose relative to the robot.
+   */
+  private final    Transform3d          robotToCamera;
+  /**
+   * Tags that can be seen.
+   */
+  private final    AprilTagFieldLayout  fieldLayout;
+  /**
+   * Frames captured but not published yet, oldest first.
+   */
+  private final    ArrayDeque<Frame>    pending               = new ArrayDeque<>();
+  /**
+   * Noise source.
+   */
+  private final    Random               random                = new Random(0);
+  /**
+   * Reused buffer for "json".
+   */
+  private final    StringBuilder        json                  = new StringBuilder(4096);
+  /**
+   * Tags of the frame being captured.
+   */
+  private final    List<VisibleTag>     visible               = new ArrayList<>();
+  /**
+   * "getpipe" publisher.
+   */
+  private final    DoublePublisher      getpipe;
+  /**
+   * "tv" publisher.
+   */
+  private final    DoublePublisher      tv;
+  /**
+   * "tx" publisher.
+   */
+  private final    DoublePublisher      tx;
+  /**
+   * "ty" publisher.
+   */
+  private final    DoublePublisher      ty;
+  /**
+   * "ta" publisher.
+   */
+  private final    DoublePublisher      ta;
+  /**
+   * "tl" publisher.
+   */
+  private final    DoublePublisher      tl;
+  /**
+   * "cl" publisher.
+   */
+  private final    DoublePublisher      cl;
+  /**
+   * "hb" publisher.
+   */
+  private final    DoublePublisher      hb;
+  /**
+   * "rawfiducials" publisher.
+   */
+  private final    DoubleArrayPublisher rawfiducials;
+  /**
+   * "botpose" publisher.
+   */
+  private final    DoubleArrayPublisher botpose;
+  /**
+   * "botpose_wpiblue" publisher.
+   */
+  private final    DoubleArrayPublisher botposeBlue;
+  /**
+   * "botpose_wpired" publisher.
+   */
+  private final    DoubleArrayPublisher botposeRed;
+  /**
+   * "botpose_orb" publisher.
+   */
+  private final    DoubleArrayPublisher botposeOrb;
+  /**
+   * "botpose_orb_wpiblue" publisher.
+   */
+  private final    DoubleArrayPublisher botposeOrbBlue;
+  /**
+   * "botpose_orb_wpired" publisher.
+   */
+  private final    DoubleArrayPublisher botposeOrbRed;
+  /**
+   * "json" publisher.
+   */
+  private final    StringPublisher      jsonPublisher;
+  /**
+   * Horizontal field of view in degrees.
+   */
+  private          double               horizontalFovDegrees  = 62.5;
+  /**
+   * Vertical field of view in degrees.
+   */
+  private          double               verticalFovDegrees    = 48.9;
+  /**
+   * Image width in pixels.
+   */
+  private          int                  imageWidth            = 1280;
+  /**
+   * Image height in pixels.
+   */
+  private          int                  imageHeight           = 960;
+  /**
+   * Frames per second.
+   */
+  private          double               fps                   = 30;
+  /**
+   * Pipeline latency in milliseconds, "tl".
+   */
+  private          double               pipelineLatencyMillis = 20;
+  /**
+   * Capture latency in milliseconds, "cl".
+   */
+  private          double               captureLatencyMillis  = 11;
+  /**
+   * Standard deviation of the pipeline latency in milliseconds.
+   */
+  private          double               latencyJitterMillis   = 2;
+  /**
+   * Standard deviation of "tx" and "ty" in degrees.
+   */
+  private          double               angleStdDevDegrees    = 0.05;
+  /**
+   * Standard deviation of the pose translation in meters, for one tag 1 m away.
+   */
+  private          double               positionStdDevMeters  = 0.01;
+  /**
+   * Standard deviation of the MegaTag1 yaw in degrees, for one tag 1 m away.
+   */
+  private          double               yawStdDevDegrees      = 0.5;
+  /**
+   * Maximum distance at which a tag is detected, in meters.
+   */
+  private          double               maxDistanceMeters     = 6;
+  /**
+   * Active pipeline index.
+   */
+  private          int                  pipelineIndex         = 0;
+  /**
+   * FPGA time of the next capture in seconds, NaN before the first.
+   */
+  private          double               nextCaptureSeconds    = Double.NaN;
+  /**
+   * Heartbeat, incremented on every published frame.
+   */
+  private          long                 heartbeat             = 0;
+
+  /**
+   * Create a {@link SimulatedLimelight} publishing into the default {@link NetworkTableInstance}.
+   *
+   * @param limelightName Name of the simulated {@link Limelight}.
+   * @param robotPose     Supplier of the true robot pose, blue origin.
+   * @param robotToCamera Camera pose relative to the robot.
+   * @param fieldLayout   {@link AprilTagFieldLayout} of the tags to see.
+   */
+  public SimulatedLimelight(String limelightName, Supplier<Pose2d> robotPose, Transform3d robotToCamera,
+                            AprilTagFieldLayout fieldLayout)
+  {
+    this(limelightName, NetworkTableInstance.getDefault(), robotPose, robotToCamera, fieldLayout);
+  }
+
+  /**
+   * Create a {@link SimulatedLimelight}.
+   *
+   * @param limelightName Name of the simulated {@link Limelight}.
+   * @param instance      {@link NetworkTableInstance} to publish into.
+   * @param robotPose     Supplier of the true robot pose, blue origin.
+   * @param robotToCamera Camera pose relative to the robot.
+   * @param fieldLayout   {@link AprilTagFieldLayout} of the tags to see.
+   */
+  public SimulatedLimelight(String limelightName, NetworkTableInstance instance, Supplier<Pose2d> robotPose,
+                            Transform3d robotToCamera, AprilTagFieldLayout fieldLayout)
+  {
+    this.robotPose = robotPose;
+    this.robotToCamera = robotToCamera;
+    this.fieldLayout = fieldLayout;
+    NetworkTable table = instance.getTable(limelightName);
+    getpipe = table.getDoubleTopic("getpipe").publish();
+    tv = table.getDoubleTopic("tv").publish();
+    tx = table.getDoubleTopic("tx").publish();
+    ty = table.getDoubleTopic("ty").publish();
+    ta = table.getDoubleTopic("ta").publish();
+    tl = table.getDoubleTopic("tl").publish();
+    cl = table.getDoubleTopic("cl").publish();
+    hb = table.getDoubleTopic("hb").publish();
+    rawfiducials = table.getDoubleArrayTopic("rawfiducials").publish();
+    botpose = table.getDoubleArrayTopic("botpose").publish();
+    botposeBlue = table.getDoubleArrayTopic("botpose_wpiblue").publish();
+    botposeRed = table.getDoubleArrayTopic("botpose_wpired").publish();
+    botposeOrb = table.getDoubleArrayTopic("botpose_orb").publish();
+    botposeOrbBlue = table.getDoubleArrayTopic("botpose_orb_wpiblue").publish();
+    botposeOrbRed = table.getDoubleArrayTopic("botpose_orb_wpired").publish();
+    jsonPublisher = table.getStringTopic("json").publish();
+    // A real Limelight announces itself with "getpipe" as soon as it boots.
+    getpipe.set(pipelineIndex);
+  }
+
+  /**
+   * Set the field of view.
+   *
+   * @param horizontalDegrees Horizontal field of view in degrees.
+   * @param verticalDegrees   Vertical field of view in degrees.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withFieldOfView(double horizontalDegrees, double verticalDegrees)
+  {
+    horizontalFovDegrees = horizontalDegrees;
+    verticalFovDegrees = verticalDegrees;
+    return this;
+  }
+
+  /**
+   * Set the image resolution used for "txp" and "typ".
+   *
+   * @param width  Image width in pixels.
+   * @param height Image height in pixels.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withResolution(int width, int height)
+  {
+    imageWidth = width;
+    imageHeight = height;
+    return this;
+  }
+
+  /**
+   * Set the frame rate.
+   *
+   * @param framesPerSecond Frames per second.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withFps(double framesPerSecond)
+  {
+    fps = framesPerSecond;
+    return this;
+  }
+
+  /**
+   * Set the latency of each frame.
+   *
+   * @param pipelineMillis Pipeline latency in milliseconds, "tl".
+   * @param captureMillis  Capture latency in milliseconds, "cl".
+   * @param jitterMillis   Standard deviation of the pipeline latency in milliseconds.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withLatency(double pipelineMillis, double captureMillis, double jitterMillis)
+  {
+    pipelineLatencyMillis = pipelineMillis;
+    captureLatencyMillis = captureMillis;
+    latencyJitterMillis = jitterMillis;
+    return this;
+  }
+
+  /**
+   * Set the measurement noise. Pose noise grows with the square of the average tag distance and shrinks with the
+   * number of tags.
+   *
+   * @param angleDegrees   Standard deviation of "tx" and "ty" in degrees.
+   * @param positionMeters Standard deviation of the pose translation in meters, for one tag 1 m away.
+   * @param yawDegrees     Standard deviation of the MegaTag1 yaw in degrees, for one tag 1 m away.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withNoise(double angleDegrees, double positionMeters, double yawDegrees)
+  {
+    angleStdDevDegrees = angleDegrees;
+    positionStdDevMeters = positionMeters;
+    yawStdDevDegrees = yawDegrees;
+    return this;
+  }
+
+  /**
+   * Set the maximum distance at which a tag is detected.
+   *
+   * @param meters Maximum distance in meters.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withMaxDistance(double meters)
+  {
+    maxDistanceMeters = meters;
+    return this;
+  }
+
+  /**
+   * Seed the noise so runs are repeatable.
+   *
+   * @param seed Seed of the noise source.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withSeed(long seed)
+  {
+    random.setSeed(seed);
+    return this;
+  }
+
+  /**
+   * Set the active pipeline, "getpipe" and "pID".
+   *
+   * @param index Pipeline index.
+   * @return {@link SimulatedLimelight} for chaining.
+   */
+  public SimulatedLimelight withPipelineIndex(int index)
+  {
+    pipelineIndex = index;
+    getpipe.set(index);
+    return this;
+  }
+
+  /**
+   * Capture a frame when one is due and publish every frame whose latency elapsed. Call from
+   * {@link edu.wpi.first.wpilibj.TimedRobot#simulationPeriodic()}.
+   */
+  public void update()
+  {
+    update(Timer.getFPGATimestamp());
+  }
+
+  /**
+   * Capture a frame when one is due and publish every frame whose latency elapsed.
+   *
+   * @param nowSeconds Current FPGA time in seconds.
+   */
+  public void update(double nowSeconds)
+  {
+    if (Double.isNaN(nextCaptureSeconds) || nowSeconds >= nextCaptureSeconds)
+    {
+      pending.add(capture(nowSeconds));
+      // A camera that fell behind drops frames instead of catching up.
+      double period = 1.0 / fps;
+      nextCaptureSeconds = Double.isNaN(nextCaptureSeconds) ? nowSeconds + period
+                                                            : Math.max(nextCaptureSeconds + period, nowSeconds);
+    }
+    while (!pending.isEmpty() && pending.peek().publishSeconds <= nowSeconds)
+    {
+      publish(pending.poll());
+    }
+  }
+
+  /**
+   * Find the visible tags and build a frame.
+   *
+   * @param captureSeconds FPGA capture time in seconds.
+   * @return Frame to publish after its latency.
+   */
+  private Frame capture(double captureSeconds)
+  {
+    Pose2d robot2d  = robotPose.get();
+    Pose3d robot    = new Pose3d(robot2d);
+    Pose3d camera   = robot.transformBy(robotToCamera);
+    double halfHFov = Math.toRadians(horizontalFovDegrees) / 2;
+    double halfVFov = Math.toRadians(verticalFovDegrees) / 2;
+    visible.clear();
+    for (AprilTag tag : fieldLayout.getTags())
+    {
+      Pose3d tagInCamera = tag.pose.relativeTo(camera);
+      double x           = tagInCamera.getX();
+      double distance    = tagInCamera.getTranslation().getNorm();
+      if (x <= 0 || distance > maxDistanceMeters)
+      {
+        continue;
+      }
+      double txRad = -Math.atan2(tagInCamera.getY(), x);
+      double tyRad = Math.atan2(tagInCamera.getZ(), x);
+      Pose3d cameraInTag = camera.relativeTo(tag.pose);
+      // The tag face points along its +X axis, so the camera must be in front of it.
+      if (Math.abs(txRad) > halfHFov || Math.abs(tyRad) > halfVFov || cameraInTag.getX() <= 0)
+      {
+        continue;
+      }
+      VisibleTag seen = new VisibleTag();
+      seen.tag = tag;
+      seen.tagInCamera = tagInCamera;
+      seen.cameraInTag = cameraInTag;
+      seen.tx = Math.toDegrees(txRad) + random.nextGaussian() * angleStdDevDegrees;
+      seen.ty = Math.toDegrees(tyRad) + random.nextGaussian() * angleStdDevDegrees;
+      double facing    = cameraInTag.getX() / cameraInTag.getTranslation().getNorm();
+      double angleSize = 2 * Math.atan(TAG_SIZE_METERS / (2 * distance));
+      seen.ta = 100 * facing * (angleSize / (2 * halfHFov)) * (angleSize / (2 * halfVFov));
+      seen.distanceToCamera = distance;
+      seen.distanceToRobot = tag.pose.getTranslation().getDistance(robot.getTranslation());
+      seen.ambiguity = MathUtil.clamp(0.02 * distance + 0.5 * (1 - facing), 0, 1);
+      visible.add(seen);
+    }
+    // Brightest first, as the Limelight sorts its targets by area.
+    visible.sort((a, b) -> Double.compare(b.ta, a.ta));
+
+    Frame frame = new Frame();
+    frame.pipelineMillis = Math.max(1, pipelineLatencyMillis + random.nextGaussian() * latencyJitterMillis);
+    frame.captureMillis = captureLatencyMillis;
+    frame.captureSeconds = captureSeconds;
+    frame.publishSeconds = captureSeconds + (frame.pipelineMillis + frame.captureMillis) / 1_000.0;
+    frame.tagCount = visible.size();
+    frame.rawfiducials = new double[frame.tagCount * RAW_FIDUCIAL_SIZE];
+    double span        = 0;
+    double distanceSum = 0;
+    double areaSum     = 0;
+    for (int i = 0; i < frame.tagCount; i++)
+    {
+      VisibleTag seen = visible.get(i);
+      int        base = i * RAW_FIDUCIAL_SIZE;
+      frame.rawfiducials[base] = seen.tag.ID;
+      frame.rawfiducials[base + 1] = seen.tx;
+      frame.rawfiducials[base + 2] = seen.ty;
+      frame.rawfiducials[base + 3] = seen.ta;
+      frame.rawfiducials[base + 4] = seen.distanceToCamera;
+      frame.rawfiducials[base + 5] = seen.distanceToRobot;
+      frame.rawfiducials[base + 6] = seen.ambiguity;
+      distanceSum += seen.distanceToCamera;
+      areaSum += seen.ta;
+      for (int j = 0; j < i; j++)
+      {
+        span = Math.max(span, seen.tag.pose.getTranslation().getDistance(visible.get(j).tag.pose.getTranslation()));
+      }
+    }
+    frame.span = span;
+    frame.avgDistance = frame.tagCount > 0 ? distanceSum / frame.tagCount : 0;
+    frame.avgArea = frame.tagCount > 0 ? areaSum / frame.tagCount : 0;
+
+    if (frame.tagCount > 0)
+    {
+      double scale = frame.avgDistance * frame.avgDistance / frame.tagCount;
+      double x     = robot2d.getX() + random.nextGaussian() * positionStdDevMeters * scale;
+      double y     = robot2d.getY() + random.nextGaussian() * positionStdDevMeters * scale;
+      double yaw   = robot2d.getRotation().getDegrees();
+      frame.megaTag1 = new double[]{x, y, 0, 0, 0, yaw + random.nextGaussian() * yawStdDevDegrees * scale};
+      // MegaTag2 takes the yaw from the gyro, so only the translation is noisy.
+      frame.megaTag2 = new double[]{robot2d.getX() + random.nextGaussian() * positionStdDevMeters * scale,
+                                    robot2d.getY() + random.nextGaussian() * positionStdDevMeters * scale,
+                                    0, 0, 0, yaw};
+    }
+    frame.json = buildJson(frame, robot);
+    return frame;
+  }
+
+  /**
+   * Build a "botpose" array from a blue-origin pose.
+   *
+   * @param frame    Frame of the pose.
+   * @param bluePose Blue-origin [x, y, z, roll, pitch, yaw] in meters and degrees, or null without tags.
+   * @param xOffset  Added to x.
+   * @param yOffset  Added to y.
+   * @param mirror   Rotate the field by 180 degrees, for the red origin.
+   * @return [x, y, z, roll, pitch, yaw, latency, tag count, span, average distance, average area] followed by the
+   *     "rawfiducials" of each tag.
+   */
+  private double[] botposeArray(Frame frame, double[] bluePose, double xOffset, double yOffset, boolean mirror)
+  {
+    double[] array = new double[BOTPOSE_SIZE + frame.rawfiducials.length];
+    System.arraycopy(poseOnly(bluePose, xOffset, yOffset, mirror), 0, array, 0, 6);
+    array[6] = frame.pipelineMillis + frame.captureMillis;
+    array[7] = frame.tagCount;
+    array[8] = frame.span;
+    array[9] = frame.avgDistance;
+    array[10] = frame.avgArea;
+    System.arraycopy(frame.rawfiducials, 0, array, BOTPOSE_SIZE, frame.rawfiducials.length);
+    return array;
+  }
+
+  /**
+   * Build the "json" results of a frame.
+   *
+   * @param frame Frame with its tags in {@link #visible}.
+   * @param robot True robot pose.
+   * @return JSON results.
+   */
+  private String buildJson(Frame frame, Pose3d robot)
+  {
+    double halfLength    = fieldLayout.getFieldLength() / 2;
+    double halfWidth     = fieldLayout.getFieldWidth() / 2;
+    double publishMillis = frame.publishSeconds * 1_000;
+    json.setLength(0);
+    json.append("{\"pID\":").append(pipelineIndex)
+        .append(",\"tl\":").append(frame.pipelineMillis)
+        .append(",\"cl\":").append(frame.captureMillis)
+        .append(",\"ts\":").append(publishMillis)
+        .append(",\"ts_rio\":").append(frame.captureSeconds * 1_000)
+        .append(",\"v\":").append(frame.tagCount > 0 ? 1 : 0);
+    appendArray(",\"botpose\":", poseOnly(frame.megaTag1, -halfLength, -halfWidth, false));
+    appendArray(",\"botpose_wpiblue\":", poseOnly(frame.megaTag1, 0, 0, false));
+    appendArray(",\"botpose_wpired\":", poseOnly(frame.megaTag1, 0, 0, true));
+    json.append(",\"botpose_tagcount\":").append(frame.tagCount)
+        .append(",\"botpose_span\":").append(frame.span)
+        .append(",\"botpose_avgdist\":").append(frame.avgDistance)
+        .append(",\"botpose_avgarea\":").append(frame.avgArea);
+    appendArray(",\"t6c_rs\":", pose3dToArray(new Pose3d().transformBy(robotToCamera)));
+    json.append(",\"Fiducial\":[");
+    for (int i = 0; i < frame.tagCount; i++)
+    {
+      VisibleTag seen = visible.get(i);
+      double     txp  = imageWidth / 2.0 * (1 + Math.tan(Math.toRadians(seen.tx))
+                                               / Math.tan(Math.toRadians(horizontalFovDegrees) / 2));
+      double     typ  = imageHeight / 2.0 * (1 - Math.tan(Math.toRadians(seen.ty))
+                                                / Math.tan(Math.toRadians(verticalFovDegrees) / 2));
+      json.append(i == 0 ? "{" : ",{")
+          .append("\"fID\":").append(seen.tag.ID)
+          .append(",\"fam\":\"36H11\"")
+          .append(",\"ta\":").append(seen.ta)
+          .append(",\"tx\":").append(seen.tx)
+          .append(",\"ty\":").append(seen.ty)
+          .append(",\"txp\":").append(txp)
+          .append(",\"typ\":").append(typ)
+          .append(",\"tx_nocross\":").append(seen.tx)
+          .append(",\"ty_nocross\":").append(seen.ty)
+          .append(",\"ts\":").append(publishMillis);
+      appendArray(",\"t6c_ts\":", pose3dToArray(seen.cameraInTag));
+      appendArray(",\"t6r_fs\":", pose3dToArray(robot));
+      appendArray(",\"t6r_ts\":", pose3dToArray(robot.relativeTo(seen.tag.pose)));
+      appendArray(",\"t6t_cs\":", pose3dToArray(seen.tagInCamera));
+      appendArray(",\"t6t_rs\":", pose3dToArray(seen.tag.pose.relativeTo(robot)));
+      json.append('}');
+    }
+    json.append("],\"Retro\":[],\"Classifier\":[],\"Detector\":[],\"Barcode\":[]}");
+    return json.toString();
+  }
+
+  /**
+   * Move a blue-origin pose to another origin, without the "botpose" metadata.
+   *
+   * @param bluePose Blue-origin pose, or null without tags.
+   * @param xOffset  Added to x.
+   * @param yOffset  Added to y.
+   * @param mirror   Rotate the field by 180 degrees, for the red origin.
+   * @return [x, y, z, roll, pitch, yaw], zeros without tags.
+   */
+  private double[] poseOnly(double[] bluePose, double xOffset, double yOffset, boolean mirror)
+  {
+    double[] pose = new double[6];
+    if (bluePose != null)
+    {
+      pose[0] = (mirror ? fieldLayout.getFieldLength() - bluePose[0] : bluePose[0]) + xOffset;
+      pose[1] = (mirror ? fieldLayout.getFieldWidth() - bluePose[1] : bluePose[1]) + yOffset;
+      pose[5] = mirror ? Math.toDegrees(MathUtil.angleModulus(Math.toRadians(bluePose[5] + 180))) : bluePose[5];
+    }
+    return pose;
+  }
+
+  /**
+   * Append a key and an array to {@link #json}.
+   *
+   * @param key    Comma, quoted key and colon.
+   * @param values Array to append.
+   */
+  private void appendArray(String key, double[] values)
+  {
+    json.append(key).append('[');
+    for (int i = 0; i < values.length; i++)
+    {
+      if (i > 0)
+      {
+        json.append(',');
+      }
+      json.append(values[i]);
+    }
+    json.append(']');
+  }
+
+  /**
+   * Publish a frame as a {@link Limelight} does.
+   *
+   * @param frame Frame whose latency elapsed.
+   */
+  private void publish(Frame frame)
+  {
+    double  halfLength = fieldLayout.getFieldLength() / 2;
+    double  halfWidth  = fieldLayout.getFieldWidth() / 2;
+    boolean hasTarget  = frame.tagCount > 0;
+    tv.set(hasTarget ? 1 : 0);
+    tx.set(hasTarget ? frame.rawfiducials[1] : 0);
+    ty.set(hasTarget ? frame.rawfiducials[2] : 0);
+    ta.set(hasTarget ? frame.rawfiducials[3] : 0);
+    tl.set(frame.pipelineMillis);
+    cl.set(frame.captureMillis);
+    rawfiducials.set(frame.rawfiducials);
+    botpose.set(botposeArray(frame, frame.megaTag1, -halfLength, -halfWidth, false));
+    botposeBlue.set(botposeArray(frame, frame.megaTag1, 0, 0, false));
+    botposeRed.set(botposeArray(frame, frame.megaTag1, 0, 0, true));
+    botposeOrb.set(botposeArray(frame, frame.megaTag2, -halfLength, -halfWidth, false));
+    botposeOrbBlue.set(botposeArray(frame, frame.megaTag2, 0, 0, false));
+    botposeOrbRed.set(botposeArray(frame, frame.megaTag2, 0, 0, true));
+    jsonPublisher.set(frame.json);
+    hb.set(++heartbeat);
+  }
+
+  /**
+   * Number of frames published.
+   *
+   * @return Heartbeat, "hb".
+   */
+  public long getFrameCount()
+  {
+    return heartbeat;
+  }
+
+  /**
+   * Number of frames captured but not published yet.
+   *
+   * @return Pending frame count.
+   */
+  public int getPendingCount()
+  {
+    return pending.size();
+  }
+
+  /**
+   * Release the publishers. The topics disappear, as when a {@link Limelight} is unplugged.
+   */
+  @Override
+  public void close()
+  {
+    pending.clear();
+    getpipe.close();
+    tv.close();
+    tx.close();
+    ty.close();
+    ta.close();
+    tl.close();
+    cl.close();
+    hb.close();
+    rawfiducials.close();
+    botpose.close();
+    botposeBlue.close();
+    botposeRed.close();
+    botposeOrb.close();
+    botposeOrbBlue.close();
+    botposeOrbRed.close();
+    jsonPublisher.close();
+  }
+
+  /**
+   * Tag seen in the frame being captured.
+   */
+  private static final class VisibleTag
+  {
+
+    /**
+     * Tag of the {@link AprilTagFieldLayout}.
+     */
+    AprilTag tag;
+    /**
+     * Tag pose relative to the camera.
+     */
+    Pose3d   tagInCamera;
+    /**
+     * Camera pose relative to the tag.
+     */
+    Pose3d   cameraInTag;
+    /**
+     * Horizontal offset in degrees, positive right.
+     */
+    double   tx;
+    /**
+     * Vertical offset in degrees, positive up.
+     */
+    double   ty;
+    /**
+     * Area in percent of the image.
+     */
+    double   ta;
+    /**
+     * Distance to the camera in meters.
+     */
+    double   distanceToCamera;
+    /**
+     * Distance to the robot in meters.
+     */
+    double   distanceToRobot;
+    /**
+     * Synthetic pose ambiguity, growing with distance and viewing angle.
+     */
+    double   ambiguity;
+  }
+
+  /**
+   * Frame captured and waiting for its latency to elapse.
+   */
+  private static final class Frame
+  {
+
+    /**
+     * FPGA capture time in seconds.
+     */
+    double   captureSeconds;
+    /**
+     * FPGA time the frame is published at, in seconds.
+     */
+    double   publishSeconds;
+    /**
+     * Pipeline latency in milliseconds.
+     */
+    double   pipelineMillis;
+    /**
+     * Capture latency in milliseconds.
+     */
+    double   captureMillis;
+    /**
+     * Number of tags seen.
+     */
+    int      tagCount;
+    /**
+     * Largest distance between two seen tags in meters.
+     */
+    double   span;
+    /**
+     * Average tag distance in meters.
+     */
+    double   avgDistance;
+    /**
+     * Average tag area in percent of the image.
+     */
+    double   avgArea;
+    /**
+     * "rawfiducials" values.
+     */
+    double[] rawfiducials;
+    /**
+     * Blue-origin MegaTag1 pose, null without tags.
+     */
+    double[] megaTag1;
+    /**
+     * Blue-origin MegaTag2 pose, null without tags.
+     */
+    double[] megaTag2;
+    /**
+     * "json" results.
+     */
+    String   json;
+  }
+}
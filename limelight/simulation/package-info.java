@@ -0,0 +1,4 @@
+/**
+ * Simulation package containing the SimulatedLimelight.
+ */
+package limelight.simulation;
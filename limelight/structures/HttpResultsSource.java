@@ -0,0 +1,283 @@
+package limelight.structures;
+
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import limelight.Limelight;
+import limelight.LimelightClockSync;
+import limelight.LimelightHttpClient;
+
+/**
+ * Optional source of {@link LimelightResults} from the {@link Limelight} REST API, for when the NetworkTables "json"
+ * entry lags behind.
+ * <p>
+ * A {@link Notifier} polls "results" through the {@link LimelightHttpClient} of the {@link Limelight}, with at most
+ * one request outstanding, and the response is decoded with a {@link LimelightResultsDecoder} off the robot thread
+ * into one of three reused {@link LimelightResults}, so polling does not allocate results. The three are handed over
+ * as a triple buffer: the HTTP callback thread only decodes into the one it owns and swaps it with the shared one, and
+ * the robot thread swaps the shared one with the one it reads only when a newer one is ready, so results returned by
+ * {@link LimelightData#getResults()} are never written while the robot thread can still read them.
+ * {@link LimelightData#getResults()} then returns whichever of the NetworkTables and HTTP results was captured last,
+ * and the number of frames won by each path is published under "/LimelightTransport/[name]" to help choose a
+ * transport per camera.
+ */
+public class HttpResultsSource implements AutoCloseable
+{
+
+  /**
+   * Default polling period in seconds.
+   */
+  public static final double DEFAULT_PERIOD_SECONDS = 0.02;
+  /**
+   * Flag in {@link #shared} set when the shared buffer holds results the robot thread has not taken yet.
+   */
+  private static final int    FRESH                  = 4;
+
+  /**
+   * {@link LimelightHttpClient} used to poll.
+   */
+  private final    LimelightHttpClient        httpClient;
+  /**
+   * {@link LimelightClockSync} of the {@link Limelight}.
+   */
+  private final    LimelightClockSync         clockSync;
+  /**
+   * Decoder used by the HTTP callback thread.
+   */
+  private final    LimelightResultsDecoder    decoder         = new LimelightResultsDecoder();
+  /**
+   * Three reused {@link LimelightResults}; each is owned by the HTTP callback thread, the robot thread or neither.
+   */
+  private final    LimelightResults[]         buffers         = {new LimelightResults(), new LimelightResults(),
+                                                                 new LimelightResults()};
+  /**
+   * Index in {@link #buffers} of the results owned by neither thread, or'ed with {@link #FRESH}.
+   */
+  private final    AtomicInteger              shared          = new AtomicInteger(1);
+  /**
+   * Index in {@link #buffers} of the results the HTTP callback thread decodes into. Only used by that thread.
+   */
+  private          int                        back            = 0;
+  /**
+   * Index in {@link #buffers} of the results the robot thread reads. Only used by the robot thread.
+   */
+  private          int                        front           = 2;
+  /**
+   * {@link Notifier} polling the REST API.
+   */
+  private final    Notifier                   notifier;
+  /**
+   * A request is outstanding.
+   */
+  private final    AtomicBoolean              requesting      = new AtomicBoolean();
+  /**
+   * Latest {@link LimelightResults} taken by the robot thread, empty before the first. Only used by the robot thread.
+   */
+  private          Optional<LimelightResults> latest          = Optional.empty();
+  /**
+   * Number of failed HTTP polls.
+   */
+  private final    LongAdder                  httpErrors      = new LongAdder();
+  /**
+   * Capture time of the last compared NetworkTables results, so each pair of frames is only counted once.
+   */
+  private          double                     lastNtCapture   = Double.NaN;
+  /**
+   * Capture time of the last compared HTTP results.
+   */
+  private          double                     lastHttpCapture = Double.NaN;
+  /**
+   * Number of comparisons won by NetworkTables.
+   */
+  private          long                       ntWins          = 0;
+  /**
+   * Number of comparisons won by HTTP.
+   */
+  private          long                       httpWins        = 0;
+  /**
+   * Number of comparisons where both paths had the same frame.
+   */
+  private          long                       ties            = 0;
+  /**
+   * Publisher of {@link #ntWins}.
+   */
+  private final    DoublePublisher            ntWinsPublisher;
+  /**
+   * Publisher of {@link #httpWins}.
+   */
+  private final    DoublePublisher            httpWinsPublisher;
+  /**
+   * Publisher of {@link #ties}.
+   */
+  private final    DoublePublisher            tiesPublisher;
+  /**
+   * Publisher of {@link #httpErrors}.
+   */
+  private final    DoublePublisher            httpErrorsPublisher;
+
+  /**
+   * Start polling the REST API of a {@link Limelight}.
+   *
+   * @param camera        {@link Limelight} to poll.
+   * @param periodSeconds Polling period in seconds.
+   */
+  public HttpResultsSource(Limelight camera, double periodSeconds)
+  {
+    httpClient = camera.getHttpClient();
+    clockSync = camera.getClockSync();
+    NetworkTable metrics = camera.getNTTable().getInstance().getTable("LimelightTransport")
+                                 .getSubTable(camera.limelightName);
+    ntWinsPublisher = metrics.getDoubleTopic("ntWins").publish();
+    httpWinsPublisher = metrics.getDoubleTopic("httpWins").publish();
+    tiesPublisher = metrics.getDoubleTopic("ties").publish();
+    httpErrorsPublisher = metrics.getDoubleTopic("httpErrors").publish();
+    notifier = new Notifier(this::poll);
+    notifier.setName("HttpResultsSource-" + camera.limelightName);
+    notifier.startPeriodic(periodSeconds);
+  }
+
+  /**
+   * Request the results unless a request is still outstanding.
+   */
+  private void poll()
+  {
+    if (!requesting.compareAndSet(false, true))
+    {
+      return;
+    }
+    httpClient.getResults()
+              .thenAccept(json -> {
+                try
+                {
+                  // Only one request is outstanding, so this callback is the only user of the back results.
+                  LimelightResults results = buffers[back];
+                  decoder.decode(json, results);
+                  // The HTTP path has no NT receive time; until the clocks are synced, use the arrival time.
+                  results.timestamp_FPGA_capture = clockSync.httpCaptureTimestamp(results, NetworkTablesJNI.now());
+                  back = shared.getAndSet(back | FRESH) & ~FRESH;
+                } catch (Exception e)
+                {
+                  httpErrors.increment();
+                }
+              })
+              .whenComplete((ignored, error) -> {
+                if (error != null)
+                {
+                  httpErrors.increment();
+                }
+                requesting.set(false);
+              });
+  }
+
+  /**
+   * Capture time of results on the {@link Limelight} clock.
+   *
+   * @param results {@link LimelightResults} to read.
+   * @return Capture time in milliseconds.
+   */
+  private static double captureTime(LimelightResults results)
+  {
+    return results.timestamp_LIMELIGHT_publish - results.latency_pipeline - results.latency_capture;
+  }
+
+  /**
+   * Take the newest HTTP results, if any, and pick the results captured last, counting which path won. Called from
+   * the robot thread; the HTTP results returned stay unchanged until the next call.
+   *
+   * @param ntResults {@link LimelightResults} from NetworkTables.
+   * @return The fresher of the NetworkTables and HTTP results.
+   */
+  Optional<LimelightResults> select(Optional<LimelightResults> ntResults)
+  {
+    if ((shared.get() & FRESH) != 0)
+    {
+      front = shared.getAndSet(front) & ~FRESH;
+      latest = Optional.of(buffers[front]);
+    }
+    Optional<LimelightResults> httpResults = latest;
+    if (httpResults.isEmpty())
+    {
+      return ntResults;
+    }
+    double  ntCapture   = ntResults.isPresent() ? captureTime(ntResults.get()) : Double.NEGATIVE_INFINITY;
+    double  httpCapture = captureTime(httpResults.get());
+    boolean httpFresher = httpCapture > ntCapture;
+    if (ntCapture != lastNtCapture || httpCapture != lastHttpCapture)
+    {
+      lastNtCapture = ntCapture;
+      lastHttpCapture = httpCapture;
+      if (httpFresher)
+      {
+        httpWinsPublisher.set(++httpWins);
+      } else if (httpCapture == ntCapture)
+      {
+        tiesPublisher.set(++ties);
+      } else
+      {
+        ntWinsPublisher.set(++ntWins);
+      }
+      httpErrorsPublisher.set(httpErrors.sum());
+    }
+    return httpFresher ? httpResults : ntResults;
+  }
+
+  /**
+   * Number of compared frames won by NetworkTables.
+   *
+   * @return NetworkTables win count.
+   */
+  public long getNtWins()
+  {
+    return ntWins;
+  }
+
+  /**
+   * Number of compared frames won by HTTP.
+   *
+   * @return HTTP win count.
+   */
+  public long getHttpWins()
+  {
+    return httpWins;
+  }
+
+  /**
+   * Number of compared frames where both paths had the same frame.
+   *
+   * @return Tie count.
+   */
+  public long getTies()
+  {
+    return ties;
+  }
+
+  /**
+   * Number of failed HTTP polls.
+   *
+   * @return HTTP error count.
+   */
+  public long getHttpErrors()
+  {
+    return httpErrors.sum();
+  }
+
+  /**
+   * Stop polling and release the publishers.
+   */
+  @Override
+  public void close()
+  {
+    notifier.stop();
+    notifier.close();
+    ntWinsPublisher.close();
+    httpWinsPublisher.close();
+    tiesPublisher.close();
+    httpErrorsPublisher.close();
+  }
+}
@@ -12,14 +12,21 @@ import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.networktables.DoubleArrayEntry;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.networktables.StringArrayEntry;
 import edu.wpi.first.wpilibj.DriverStation;
 
+import java.util.EnumSet;
 import java.util.Optional;
 
 import limelight.Limelight;
+import limelight.LimelightClockSync;
+import limelight.LimelightMetrics;
 import limelight.results.RawDetection;
+import limelight.results.RawDetectionBuffer;
 import limelight.results.RawFiducial;
+import limelight.results.RawFiducialBuffer;
 
 /**
  * Data retrieval class for {@link Limelight}
@@ -83,6 +90,74 @@ public class LimelightData
    * Object mapper for limelight.results JSON.
    */
   private ObjectMapper          resultsObjectMapper;
+  /**
+   * Streaming decoder for limelight.results JSON which reuses a caller-owned {@link LimelightResults}.
+   */
+  private LimelightResultsDecoder resultsDecoder;
+  /**
+   * Last {@link LimelightResults} returned by {@link #getResults()}.
+   */
+  private Optional<LimelightResults> cachedResults          = Optional.empty();
+  /**
+   * Last change time of the JSON entry when {@link #cachedResults} was decoded, -1 if never.
+   */
+  private long                       cachedResultsTimestamp = -1;
+  /**
+   * Last {@link LimelightResults} filled by {@link #updateResults(LimelightResults)}.
+   */
+  private LimelightResults           updatedResults;
+  /**
+   * Last change time of the JSON entry when {@link #updatedResults} was filled, -1 if never.
+   */
+  private long                       updatedResultsTimestamp = -1;
+  /**
+   * Number of results requests answered without decoding because the JSON entry had not changed.
+   */
+  private long                       resultsCacheHits;
+  /**
+   * Number of times the JSON entry was decoded.
+   */
+  private long                       resultsParseCount;
+  /**
+   * Reusable view over the raw fiducial array.
+   */
+  private RawFiducialBuffer          rawFiducialBuffer          = new RawFiducialBuffer();
+  /**
+   * Last change time of the raw fiducial entry when {@link #rawFiducialBuffer} was wrapped, -1 if never.
+   */
+  private long                       rawFiducialBufferTimestamp = -1;
+  /**
+   * Reusable view over the raw detection array.
+   */
+  private RawDetectionBuffer         rawDetectionBuffer          = new RawDetectionBuffer();
+  /**
+   * Last change time of the raw detection entry when {@link #rawDetectionBuffer} was wrapped, -1 if never.
+   */
+  private long                       rawDetectionBufferTimestamp = -1;
+  /**
+   * NetworkTables listener handles while background decoding is running, null otherwise.
+   */
+  private int[]                      listenerHandles;
+  /**
+   * {@link LimelightResults} decoded by the NetworkTables listener thread.
+   */
+  private volatile Optional<LimelightResults> backgroundResults    = Optional.empty();
+  /**
+   * {@link RawFiducial}s decoded by the NetworkTables listener thread.
+   */
+  private volatile RawFiducial[]              backgroundFiducials  = new RawFiducial[0];
+  /**
+   * {@link RawDetection}s decoded by the NetworkTables listener thread.
+   */
+  private volatile RawDetection[]             backgroundDetections = new RawDetection[0];
+  /**
+   * {@link HttpResultsSource} compared with the NetworkTables results, null when disabled.
+   */
+  private          HttpResultsSource          httpResults;
+  /**
+   * {@link LimelightMetrics} of the {@link Limelight}.
+   */
+  private final    LimelightMetrics           metrics;
 
   /**
    * Construct the {@link LimelightData} class to retrieve read-only data.
@@ -92,7 +167,9 @@ public class LimelightData
   public LimelightData(Limelight camera)
   {
     resultsObjectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    resultsDecoder = new LimelightResultsDecoder();
     limelight = camera;
+    metrics = camera.getMetrics();
     limelightTable = limelight.getNTTable();
     results = limelightTable.getEntry("json");
     rawfiducials = limelightTable.getEntry("rawfiducials");
@@ -172,11 +249,47 @@ public class LimelightData
    * Get {@link LimelightResults} from NetworkTables.
    * <p>
    * Exists only if LL GUI option "Output & Crosshair - Send JSON over NT?" is Yes
+   * <p>
+   * The JSON is only decoded when NetworkTables has received a new value; until then the same
+   * {@link LimelightResults} object is returned again, so it should be treated as read-only.
+   * <p>
+   * With {@link #startHttpResults(double)} the results captured last by either NetworkTables or HTTP are returned.
    *
    * @return {@link LimelightResults} if it exists.
    */
   public Optional<LimelightResults> getResults()
   {
+    if (!limelight.isFresh())
+    {
+      return Optional.empty();
+    }
+    if (httpResults != null)
+    {
+      return httpResults.select(getNetworkTablesResults());
+    }
+    return getNetworkTablesResults();
+  }
+
+  /**
+   * Get {@link LimelightResults} from the NetworkTables "json" entry only.
+   *
+   * @return {@link LimelightResults} if it exists.
+   */
+  private Optional<LimelightResults> getNetworkTablesResults()
+  {
+    metrics.results.call();
+    if (listenerHandles != null)
+    {
+      return backgroundResults;
+    }
+    long timestamp = results.getLastChange();
+    if (timestamp == cachedResultsTimestamp)
+    {
+      resultsCacheHits++;
+      return cachedResults;
+    }
+    cachedResultsTimestamp = timestamp;
+    cachedResults = Optional.empty();
     try
     {
       var JSONresult = results.getString("");
@@ -184,17 +297,132 @@ public class LimelightData
       {
         return Optional.empty();
       }
+      resultsParseCount++;
+      long startNanos = metrics.start();
       LimelightResults data = resultsObjectMapper.readValue(JSONresult, LimelightResults.class); // don't use wrapper class
       // LimelightResults data = resultsObjectMapper.readValue(JSONresult, ResultsWrapper.class).resultsWrapper; // use wrapper class
-      return Optional.of(data);
+      syncClock(data, timestamp);
+      metrics.results.decoded(startNanos, JSONresult.length(), timestamp);
+      cachedResults = Optional.of(data);
+      return cachedResults;
     } catch (Exception e) // catch all the errors - multiple kinds are possible
     { 
+        metrics.results.error();
         System.out.println("lljson error: " + e.getMessage());
         DriverStation.reportError("lljson error: " + e.getMessage(), true);
     }
     return Optional.empty();
   }
 
+  /**
+   * Feed the {@link LimelightClockSync} with decoded results and set their FPGA capture timestamp.
+   *
+   * @param data            Decoded {@link LimelightResults}.
+   * @param ntReceiveMicros NetworkTables receive time of the JSON in microseconds.
+   */
+  private void syncClock(LimelightResults data, long ntReceiveMicros)
+  {
+    LimelightClockSync clockSync = limelight.getClockSync();
+    clockSync.addLimelightSample(data, ntReceiveMicros);
+    data.timestamp_FPGA_capture = clockSync.captureTimestamp(data, ntReceiveMicros);
+  }
+
+  /**
+   * Also poll the {@link Limelight} REST API for results, and have {@link #getResults()} return whichever of the
+   * NetworkTables and HTTP results was captured last.
+   *
+   * @param periodSeconds Polling period in seconds, e.g. {@link HttpResultsSource#DEFAULT_PERIOD_SECONDS}.
+   * @return {@link HttpResultsSource} with the per-path win counters.
+   */
+  public HttpResultsSource startHttpResults(double periodSeconds)
+  {
+    stopHttpResults();
+    httpResults = new HttpResultsSource(limelight, periodSeconds);
+    return httpResults;
+  }
+
+  /**
+   * Stop polling the {@link Limelight} REST API for results.
+   */
+  public void stopHttpResults()
+  {
+    if (httpResults != null)
+    {
+      httpResults.close();
+      httpResults = null;
+    }
+  }
+
+  /**
+   * Decode the {@link LimelightResults} from NetworkTables into the given object, reusing its target objects and
+   * arrays. Steady-state decoding with the same number of targets creates no new result objects.
+   * <p>
+   * Exists only if LL GUI option "Output & Crosshair - Send JSON over NT?" is Yes
+   *
+   * If the same object was already filled from the current NetworkTables value it is not decoded again.
+   *
+   * @param limelightResults {@link LimelightResults} to fill, owned by the caller.
+   * @return True if the results are current, false if there is no JSON or it could not be decoded.
+   */
+  public boolean updateResults(LimelightResults limelightResults)
+  {
+    if (!limelight.isFresh())
+    {
+      return false;
+    }
+    metrics.results.call();
+    long timestamp = results.getLastChange();
+    if (limelightResults == updatedResults && timestamp == updatedResultsTimestamp)
+    {
+      resultsCacheHits++;
+      return true;
+    }
+    updatedResults = null;
+    try
+    {
+      var JSONresult = results.getString("");
+      if (JSONresult.length() <= 0)
+      {
+        return false;
+      }
+      resultsParseCount++;
+      long startNanos = metrics.start();
+      resultsDecoder.decode(JSONresult, limelightResults);
+      syncClock(limelightResults, timestamp);
+      metrics.results.decoded(startNanos, JSONresult.length(), timestamp);
+      updatedResults = limelightResults;
+      updatedResultsTimestamp = timestamp;
+      return true;
+    } catch (Exception e) // catch all the errors - multiple kinds are possible
+    {
+        metrics.results.error();
+        System.out.println("lljson error: " + e.getMessage());
+        DriverStation.reportError("lljson error: " + e.getMessage(), true);
+    }
+    return false;
+  }
+
+  /**
+   * Number of {@link #getResults()} and {@link #updateResults(LimelightResults)} calls answered from the last decoded
+   * value because no new JSON had arrived.
+   *
+   * @return Results cache hits.
+   */
+  public long getResultsCacheHits()
+  {
+    return resultsCacheHits;
+  }
+
+  /**
+   * Number of times the JSON results were decoded.
+   *
+   * @return Results decode count.
+   */
+  public long getResultsParseCount()
+  {
+    return resultsParseCount;
+  }
+
   /**
    * Gets the latest raw fiducial/AprilTag detection limelight.results from NetworkTables.
    *
@@ -202,7 +430,60 @@ public class LimelightData
    */
   public RawFiducial[] getRawFiducials()
   {
-    var rawFiducialArray = rawfiducials.getDoubleArray(new double[0]);
+    if (!limelight.isFresh())
+    {
+      return new RawFiducial[0];
+    }
+    metrics.rawFiducials.call();
+    if (listenerHandles != null)
+    {
+      return backgroundFiducials;
+    }
+    if (!metrics.isEnabled())
+    {
+      return decodeRawFiducials(rawfiducials.getDoubleArray(new double[0]));
+    }
+    long          startNanos = metrics.start();
+    double[]      array      = rawfiducials.getDoubleArray(new double[0]);
+    RawFiducial[] decoded    = decodeRawFiducials(array);
+    recordArrayDecode(metrics.rawFiducials, startNanos, array, RawFiducialBuffer.VALUES_PER_FIDUCIAL,
+                      rawfiducials.getLastChange());
+    return decoded;
+  }
+
+  /**
+   * Gets the latest raw fiducial/AprilTag detections from NetworkTables as a reusable {@link RawFiducialBuffer} view,
+   * without a {@link RawFiducial} object per tag. The array is only fetched again when NetworkTables has a new value.
+   * <p>
+   * The same buffer is returned on every call and is updated in place.
+   *
+   * @return {@link RawFiducialBuffer} over the raw fiducials; empty if the {@link Limelight} is not
+   *     {@link Limelight#isFresh() fresh}.
+   */
+  public RawFiducialBuffer getRawFiducialBuffer()
+  {
+    if (!limelight.isFresh())
+    {
+      rawFiducialBufferTimestamp = -1;
+      return rawFiducialBuffer.wrap(new double[0]);
+    }
+    long timestamp = rawfiducials.getLastChange();
+    if (timestamp != rawFiducialBufferTimestamp)
+    {
+      rawFiducialBufferTimestamp = timestamp;
+      rawFiducialBuffer.wrap(rawfiducials.getDoubleArray(new double[0]));
+    }
+    return rawFiducialBuffer;
+  }
+
+  /**
+   * Decode the raw fiducial/AprilTag array from NetworkTables.
+   *
+   * @param rawFiducialArray Raw fiducial array, 7 values per tag.
+   * @return Array of RawFiducial objects containing detection details
+   */
+  private static RawFiducial[] decodeRawFiducials(double[] rawFiducialArray)
+  {
     int valsPerEntry     = 7;
     if (rawFiducialArray.length % valsPerEntry != 0)
     {
@@ -236,7 +517,80 @@ public class LimelightData
    */
   public RawDetection[] getRawDetections()
   {
-    var rawDetectionArray = rawDetections.getDoubleArray(new double[0]);
+    if (!limelight.isFresh())
+    {
+      return new RawDetection[0];
+    }
+    metrics.rawDetections.call();
+    if (listenerHandles != null)
+    {
+      return backgroundDetections;
+    }
+    if (!metrics.isEnabled())
+    {
+      return decodeRawDetections(rawDetections.getDoubleArray(new double[0]));
+    }
+    long           startNanos = metrics.start();
+    double[]       array      = rawDetections.getDoubleArray(new double[0]);
+    RawDetection[] decoded    = decodeRawDetections(array);
+    recordArrayDecode(metrics.rawDetections, startNanos, array, RawDetectionBuffer.VALUES_PER_DETECTION,
+                      rawDetections.getLastChange());
+    return decoded;
+  }
+
+  /**
+   * Record the decode of a raw array in a {@link LimelightMetrics.Channel}, counting a malformed array as an error.
+   *
+   * @param channel         {@link LimelightMetrics.Channel} to record in.
+   * @param startNanos      Value of {@link LimelightMetrics#start()} before decoding.
+   * @param array           Decoded array.
+   * @param valuesPerEntry  Number of values per fiducial or detection.
+   * @param ntReceiveMicros NetworkTables receive time of the array in microseconds.
+   */
+  private static void recordArrayDecode(LimelightMetrics.Channel channel, long startNanos, double[] array,
+                                        int valuesPerEntry, long ntReceiveMicros)
+  {
+    if (array.length % valuesPerEntry != 0)
+    {
+      channel.error();
+    }
+    channel.decoded(startNanos, array.length * Double.BYTES, ntReceiveMicros);
+  }
+
+  /**
+   * Gets the latest raw neural detector results from NetworkTables as a reusable {@link RawDetectionBuffer} view,
+   * without a {@link RawDetection} object per detection. The array is only fetched again when NetworkTables has a new
+   * value.
+   * <p>
+   * The same buffer is returned on every call and is updated in place.
+   *
+   * @return {@link RawDetectionBuffer} over the raw detections; empty if the {@link Limelight} is not
+   *     {@link Limelight#isFresh() fresh}.
+   */
+  public RawDetectionBuffer getRawDetectionBuffer()
+  {
+    if (!limelight.isFresh())
+    {
+      rawDetectionBufferTimestamp = -1;
+      return rawDetectionBuffer.wrap(new double[0]);
+    }
+    long timestamp = rawDetections.getLastChange();
+    if (timestamp != rawDetectionBufferTimestamp)
+    {
+      rawDetectionBufferTimestamp = timestamp;
+      rawDetectionBuffer.wrap(rawDetections.getDoubleArray(new double[0]));
+    }
+    return rawDetectionBuffer;
+  }
+
+  /**
+   * Decode the raw neural detector array from NetworkTables.
+   *
+   * @param rawDetectionArray Raw detection array, 12 values per detection.
+   * @return Array of RawDetection objects containing detection details
+   */
+  private static RawDetection[] decodeRawDetections(double[] rawDetectionArray)
+  {
     int valsPerEntry      = 12;
     if (rawDetectionArray.length % valsPerEntry != 0)
     {
@@ -279,6 +633,78 @@ public class LimelightData
     return rawDetections;
   }
 
+  /**
+   * Decode the JSON results, raw fiducials and raw detections on the NetworkTables listener thread as they arrive
+   * instead of on the robot loop when the getters are called.
+   * <p>
+   * Each new value is decoded into a fresh object which is then handed to the robot loop through a volatile field, so
+   * {@link #getResults()}, {@link #getRawFiducials()} and {@link #getRawDetections()} become a single volatile read.
+   * The returned objects are shared snapshots and must not be modified.
+   */
+  public void startBackgroundDecoding()
+  {
+    if (listenerHandles != null)
+    {
+      return;
+    }
+    NetworkTableInstance            instance = limelightTable.getInstance();
+    EnumSet<NetworkTableEvent.Kind> kinds    = EnumSet.of(NetworkTableEvent.Kind.kImmediate,
+                                                          NetworkTableEvent.Kind.kValueAll);
+    listenerHandles = new int[]{
+        instance.addListener(results, kinds, event -> {
+          try
+          {
+            String JSONresult = event.valueData.value.getString();
+            if (JSONresult.length() <= 0)
+            {
+              backgroundResults = Optional.empty();
+              return;
+            }
+            long             startNanos = metrics.start();
+            LimelightResults data       = resultsObjectMapper.readValue(JSONresult, LimelightResults.class);
+            syncClock(data, event.valueData.value.getTime());
+            metrics.results.decoded(startNanos, JSONresult.length(), event.valueData.value.getTime());
+            backgroundResults = Optional.of(data);
+          } catch (Exception e) // catch all the errors - multiple kinds are possible
+          {
+            metrics.results.error();
+            backgroundResults = Optional.empty();
+            DriverStation.reportError("lljson error: " + e.getMessage(), true);
+          }
+        }),
+        instance.addListener(rawfiducials, kinds, event -> {
+          long     startNanos = metrics.start();
+          double[] array      = event.valueData.value.getDoubleArray();
+          backgroundFiducials = decodeRawFiducials(array);
+          recordArrayDecode(metrics.rawFiducials, startNanos, array, RawFiducialBuffer.VALUES_PER_FIDUCIAL,
+                            event.valueData.value.getTime());
+        }),
+        instance.addListener(rawDetections, kinds, event -> {
+          long     startNanos = metrics.start();
+          double[] array      = event.valueData.value.getDoubleArray();
+          backgroundDetections = decodeRawDetections(array);
+          recordArrayDecode(metrics.rawDetections, startNanos, array, RawDetectionBuffer.VALUES_PER_DETECTION,
+                            event.valueData.value.getTime());
+        })
+    };
+  }
+
+  /**
+   * Stop decoding on the NetworkTables listener thread and go back to decoding when the getters are called.
+   */
+  public void stopBackgroundDecoding()
+  {
+    if (listenerHandles == null)
+    {
+      return;
+    }
+    for (int handle : listenerHandles)
+    {
+      limelightTable.getInstance().removeListener(handle);
+    }
+    listenerHandles = null;
+  }
+
   // Example of a JSON deserializer wrapper class that can be customized.
   // Customization not needed for the current impelmentation of this YALL.
   // /**
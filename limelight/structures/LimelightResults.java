@@ -42,6 +42,8 @@ public class LimelightResults
   @JsonProperty("ts_rio")
   public double timestamp_RIOFPGA_capture;
 
+  public double timestamp_FPGA_capture;
+
   @JsonProperty("v")
   @JsonFormat(shape = Shape.NUMBER)
   public boolean valid;
@@ -80,6 +82,36 @@ public class LimelightResults
   @JsonProperty("Barcode")
   public Barcode[]             targets_Barcode;
 
+  /**
+   * Target object pools used by {@link LimelightResultsDecoder} to reuse targets between frames.
+   */
+  final LimelightResultsDecoder.TargetPool<RetroreflectiveTape> retroPool      =
+      new LimelightResultsDecoder.TargetPool<>(RetroreflectiveTape::new, RetroreflectiveTape[]::new);
+  final LimelightResultsDecoder.TargetPool<AprilTagFiducial>    fiducialPool   =
+      new LimelightResultsDecoder.TargetPool<>(AprilTagFiducial::new, AprilTagFiducial[]::new);
+  final LimelightResultsDecoder.TargetPool<NeuralClassifier>    classifierPool =
+      new LimelightResultsDecoder.TargetPool<>(NeuralClassifier::new, NeuralClassifier[]::new);
+  final LimelightResultsDecoder.TargetPool<NeuralDetector>      detectorPool   =
+      new LimelightResultsDecoder.TargetPool<>(NeuralDetector::new, NeuralDetector[]::new);
+  final LimelightResultsDecoder.TargetPool<Barcode>             barcodePool    =
+      new LimelightResultsDecoder.TargetPool<>(Barcode::new, Barcode[]::new);
+  /**
+   * Arrays of {@link #botpose} by length, reused by {@link LimelightResultsDecoder}.
+   */
+  final LimelightResultsDecoder.ArrayPool botposePool               = new LimelightResultsDecoder.ArrayPool();
+  /**
+   * Arrays of {@link #botpose_wpired} by length, reused by {@link LimelightResultsDecoder}.
+   */
+  final LimelightResultsDecoder.ArrayPool botpose_wpiredPool        = new LimelightResultsDecoder.ArrayPool();
+  /**
+   * Arrays of {@link #botpose_wpiblue} by length, reused by {@link LimelightResultsDecoder}.
+   */
+  final LimelightResultsDecoder.ArrayPool botpose_wpibluePool       = new LimelightResultsDecoder.ArrayPool();
+  /**
+   * Arrays of {@link #camerapose_robotspace} by length, reused by {@link LimelightResultsDecoder}.
+   */
+  final LimelightResultsDecoder.ArrayPool camerapose_robotspacePool = new LimelightResultsDecoder.ArrayPool();
+
   public LimelightResults()
   {
     botpose = new double[6];
@@ -142,6 +174,7 @@ public class LimelightResults
     str.append("cl " + latency_capture + "\n");
     str.append("ts " + timestamp_LIMELIGHT_publish + "\n");
     str.append("ts_rio " + timestamp_RIOFPGA_capture + "\n");
+    str.append("ts_fpga_capture " + timestamp_FPGA_capture + "\n");
     str.append("v " + valid + "\n");
     str.append("botpose 3d " + getBotPose3d() + "\n");
     str.append("botpose_wpired 3d " + getBotPose3d(DriverStation.Alliance.Red) + "\n");
@@ -0,0 +1,831 @@
+package limelight.structures;
+
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import limelight.Limelight;
+import limelight.structures.target.AprilTagFiducial;
+import limelight.structures.target.Barcode;
+import limelight.structures.target.RetroreflectiveTape;
+import limelight.structures.target.TargetPoses;
+import limelight.structures.target.pipeline.NeuralClassifier;
+import limelight.structures.target.pipeline.NeuralDetector;
+
+/**
+ * Streaming decoder for the {@link Limelight} JSON results which fills a caller-owned {@link LimelightResults} in
+ * place.
+ * <p>
+ * Unlike the {@link com.fasterxml.jackson.databind.ObjectMapper} path, the target objects, their pose buffers and the
+ * result arrays are reused from one frame to the next. New target objects are only created when a frame has more
+ * targets of a kind than any frame decoded before it, and new target and number arrays only for a count or length not
+ * seen before, so a decoder in steady state allocates nothing.
+ * <p>
+ * A decoder instance is not thread safe; use one per thread.
+ */
+public class LimelightResultsDecoder
+{
+
+  /**
+   * Empty {@link RetroreflectiveTape} targets.
+   */
+  private static final RetroreflectiveTape[] NO_RETRO      = new RetroreflectiveTape[0];
+  /**
+   * Empty {@link AprilTagFiducial} targets.
+   */
+  private static final AprilTagFiducial[]    NO_FIDUCIALS  = new AprilTagFiducial[0];
+  /**
+   * Empty {@link NeuralClassifier} targets.
+   */
+  private static final NeuralClassifier[]    NO_CLASSIFIER = new NeuralClassifier[0];
+  /**
+   * Empty {@link NeuralDetector} targets.
+   */
+  private static final NeuralDetector[]      NO_DETECTOR   = new NeuralDetector[0];
+  /**
+   * Empty {@link Barcode} targets.
+   */
+  private static final Barcode[]             NO_BARCODE    = new Barcode[0];
+
+  /**
+   * JSON parser factory.
+   */
+  private final JsonFactory jsonFactory = new JsonFactory();
+  /**
+   * Reusable character buffer the JSON string is copied into.
+   */
+  private       char[]      chars       = new char[4096];
+  /**
+   * Scratch buffer for number arrays of unknown length.
+   */
+  private       double[]    numbers     = new double[32];
+  /**
+   * {@link RetroreflectiveTape} reader, held to avoid creating a method reference per frame.
+   */
+  private final TargetReader<RetroreflectiveTape> retroReader      = this::readRetro;
+  /**
+   * {@link AprilTagFiducial} reader.
+   */
+  private final TargetReader<AprilTagFiducial>    fiducialReader   = this::readFiducial;
+  /**
+   * {@link NeuralClassifier} reader.
+   */
+  private final TargetReader<NeuralClassifier>    classifierReader = this::readClassifier;
+  /**
+   * {@link NeuralDetector} reader.
+   */
+  private final TargetReader<NeuralDetector>      detectorReader   = this::readDetector;
+  /**
+   * {@link Barcode} reader.
+   */
+  private final TargetReader<Barcode>             barcodeReader    = this::readBarcode;
+
+  /**
+   * Construct the {@link LimelightResultsDecoder}.
+   */
+  public LimelightResultsDecoder()
+  {
+  }
+
+  /**
+   * Decode the JSON results into the given {@link LimelightResults}. Every field is overwritten; fields that are not
+   * present in the JSON are reset to their defaults.
+   *
+   * @param json    JSON results from the {@link Limelight}.
+   * @param results {@link LimelightResults} to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  public void decode(String json, LimelightResults results) throws IOException
+  {
+    long start  = System.nanoTime();
+    int  length = json.length();
+    if (chars.length < length)
+    {
+      chars = new char[Math.max(length, chars.length * 2)];
+    }
+    json.getChars(0, length, chars, 0);
+
+    reset(results);
+    boolean sawError      = false;
+    boolean sawRetro      = false;
+    boolean sawFiducial   = false;
+    boolean sawClassifier = false;
+    boolean sawDetector   = false;
+    boolean sawBarcode    = false;
+    try (JsonParser parser = jsonFactory.createParser(chars, 0, length))
+    {
+      if (parser.nextToken() != JsonToken.START_OBJECT)
+      {
+        throw new IOException("Limelight results are not a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME)
+      {
+        String field = parser.currentName();
+        parser.nextToken();
+        switch (field)
+        {
+          case "error" ->
+          {
+            results.error = readString(parser, results.error);
+            sawError = true;
+          }
+          case "pID" -> results.pipelineID = readDouble(parser);
+          case "tl" -> results.latency_pipeline = readDouble(parser);
+          case "cl" -> results.latency_capture = readDouble(parser);
+          case "ts" -> results.timestamp_LIMELIGHT_publish = readDouble(parser);
+          case "ts_rio" -> results.timestamp_RIOFPGA_capture = readDouble(parser);
+          case "v" -> results.valid = readBoolean(parser);
+          case "botpose" -> results.botpose = readDoubleArray(parser, results.botpose, results.botposePool);
+          case "botpose_wpired" -> results.botpose_wpired = readDoubleArray(parser, results.botpose_wpired,
+                                                                            results.botpose_wpiredPool);
+          case "botpose_wpiblue" -> results.botpose_wpiblue = readDoubleArray(parser, results.botpose_wpiblue,
+                                                                              results.botpose_wpibluePool);
+          case "botpose_tagcount" -> results.botpose_tagcount = readDouble(parser);
+          case "botpose_span" -> results.botpose_span = readDouble(parser);
+          case "botpose_avgdist" -> results.botpose_avgdist = readDouble(parser);
+          case "botpose_avgarea" -> results.botpose_avgarea = readDouble(parser);
+          case "t6c_rs" -> results.camerapose_robotspace = readDoubleArray(parser, results.camerapose_robotspace,
+                                                                             results.camerapose_robotspacePool);
+          case "Retro" ->
+          {
+            results.targets_Retro = readTargets(parser, results.retroPool, results.targets_Retro, retroReader);
+            sawRetro = true;
+          }
+          case "Fiducial" ->
+          {
+            results.targets_Fiducials = readTargets(parser, results.fiducialPool, results.targets_Fiducials,
+                                                    fiducialReader);
+            sawFiducial = true;
+          }
+          case "Classifier" ->
+          {
+            results.targets_Classifier = readTargets(parser, results.classifierPool, results.targets_Classifier,
+                                                     classifierReader);
+            sawClassifier = true;
+          }
+          case "Detector" ->
+          {
+            results.targets_Detector = readTargets(parser, results.detectorPool, results.targets_Detector,
+                                                   detectorReader);
+            sawDetector = true;
+          }
+          case "Barcode" ->
+          {
+            results.targets_Barcode = readTargets(parser, results.barcodePool, results.targets_Barcode,
+                                                  barcodeReader);
+            sawBarcode = true;
+          }
+          default -> parser.skipChildren();
+        }
+      }
+    }
+    if (!sawError)
+    {
+      results.error = null;
+    }
+    if (!sawRetro)
+    {
+      results.targets_Retro = NO_RETRO;
+    }
+    if (!sawFiducial)
+    {
+      results.targets_Fiducials = NO_FIDUCIALS;
+    }
+    if (!sawClassifier)
+    {
+      results.targets_Classifier = NO_CLASSIFIER;
+    }
+    if (!sawDetector)
+    {
+      results.targets_Detector = NO_DETECTOR;
+    }
+    if (!sawBarcode)
+    {
+      results.targets_Barcode = NO_BARCODE;
+    }
+    results.latency_jsonParse = (System.nanoTime() - start) / 1_000_000.0;
+  }
+
+  /**
+   * Reset the scalar fields, keeping every buffer and target array for reuse.
+   *
+   * @param results {@link LimelightResults} to reset.
+   */
+  private static void reset(LimelightResults results)
+  {
+    results.pipelineID = 0;
+    results.latency_pipeline = 0;
+    results.latency_capture = 0;
+    results.timestamp_LIMELIGHT_publish = 0;
+    results.timestamp_RIOFPGA_capture = 0;
+    results.valid = false;
+    Arrays.fill(results.botpose, 0);
+    Arrays.fill(results.botpose_wpired, 0);
+    Arrays.fill(results.botpose_wpiblue, 0);
+    Arrays.fill(results.camerapose_robotspace, 0);
+    results.botpose_tagcount = 0;
+    results.botpose_span = 0;
+    results.botpose_avgdist = 0;
+    results.botpose_avgarea = 0;
+  }
+
+  /**
+   * Read a JSON array of targets into pooled target objects.
+   *
+   * @param parser  Parser positioned on the array.
+   * @param pool    Pool of target objects owned by the {@link LimelightResults}.
+   * @param current Target array from the previous frame.
+   * @param reader  Reads one target object in place.
+   * @param <T>     Target type.
+   * @return Target array; the previous array when the target count did not change.
+   * @throws IOException if the JSON is malformed.
+   */
+  private <T> T[] readTargets(JsonParser parser, TargetPool<T> pool, T[] current, TargetReader<T> reader)
+  throws IOException
+  {
+    if (parser.currentToken() != JsonToken.START_ARRAY)
+    {
+      parser.skipChildren();
+      return pool.toArray(0, current);
+    }
+    int count = 0;
+    while (parser.nextToken() == JsonToken.START_OBJECT)
+    {
+      reader.read(parser, pool.get(count++));
+    }
+    return pool.toArray(count, current);
+  }
+
+  /**
+   * Read a {@link RetroreflectiveTape} target.
+   *
+   * @param parser Parser positioned on the target object.
+   * @param target Target to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  private void readRetro(JsonParser parser, RetroreflectiveTape target) throws IOException
+  {
+    target.ta = target.tx = target.ty = 0;
+    target.tx_pixels = target.ty_pixels = 0;
+    target.tx_nocrosshair = target.ty_nocrosshair = 0;
+    target.ts = 0;
+    TargetPoses.clear(target);
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field)
+      {
+        case "ta" -> target.ta = readDouble(parser);
+        case "tx" -> target.tx = readDouble(parser);
+        case "ty" -> target.ty = readDouble(parser);
+        case "txp" -> target.tx_pixels = readDouble(parser);
+        case "typ" -> target.ty_pixels = readDouble(parser);
+        case "tx_nocross" -> target.tx_nocrosshair = readDouble(parser);
+        case "ty_nocross" -> target.ty_nocrosshair = readDouble(parser);
+        case "ts" -> target.ts = readDouble(parser);
+        case "t6c_ts", "t6r_fs", "t6r_ts", "t6t_cs", "t6t_rs" ->
+        {
+          int count = readNumbers(parser);
+          if (count >= 0)
+          {
+            TargetPoses.set(target, poseIndex(field), numbers, count);
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Read an {@link AprilTagFiducial} target.
+   *
+   * @param parser Parser positioned on the target object.
+   * @param target Target to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  private void readFiducial(JsonParser parser, AprilTagFiducial target) throws IOException
+  {
+    boolean sawFamily = false;
+    target.fiducialID = 0;
+    target.ta = target.tx = target.ty = 0;
+    target.tx_pixels = target.ty_pixels = 0;
+    target.tx_nocrosshair = target.ty_nocrosshair = 0;
+    target.ts = 0;
+    TargetPoses.clear(target);
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field)
+      {
+        case "fID" -> target.fiducialID = readDouble(parser);
+        case "fam" ->
+        {
+          target.fiducialFamily = readString(parser, target.fiducialFamily);
+          sawFamily = true;
+        }
+        case "ta" -> target.ta = readDouble(parser);
+        case "tx" -> target.tx = readDouble(parser);
+        case "ty" -> target.ty = readDouble(parser);
+        case "txp" -> target.tx_pixels = readDouble(parser);
+        case "typ" -> target.ty_pixels = readDouble(parser);
+        case "tx_nocross" -> target.tx_nocrosshair = readDouble(parser);
+        case "ty_nocross" -> target.ty_nocrosshair = readDouble(parser);
+        case "ts" -> target.ts = readDouble(parser);
+        case "t6c_ts", "t6r_fs", "t6r_ts", "t6t_cs", "t6t_rs" ->
+        {
+          int count = readNumbers(parser);
+          if (count >= 0)
+          {
+            TargetPoses.set(target, poseIndex(field), numbers, count);
+          }
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    if (!sawFamily)
+    {
+      target.fiducialFamily = null;
+    }
+  }
+
+  /**
+   * Map the JSON key of a target pose to its {@link TargetPoses} index.
+   *
+   * @param field JSON key: "t6c_ts", "t6r_fs", "t6r_ts", "t6t_cs" or "t6t_rs".
+   * @return {@link TargetPoses} index.
+   */
+  private static int poseIndex(String field)
+  {
+    return switch (field)
+    {
+      case "t6c_ts" -> TargetPoses.CAMERA_POSE_TARGET_SPACE;
+      case "t6r_fs" -> TargetPoses.ROBOT_POSE_FIELD_SPACE;
+      case "t6r_ts" -> TargetPoses.ROBOT_POSE_TARGET_SPACE;
+      case "t6t_cs" -> TargetPoses.TARGET_POSE_CAMERA_SPACE;
+      default -> TargetPoses.TARGET_POSE_ROBOT_SPACE;
+    };
+  }
+
+  /**
+   * Read a {@link NeuralClassifier} target.
+   *
+   * @param parser Parser positioned on the target object.
+   * @param target Target to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  private void readClassifier(JsonParser parser, NeuralClassifier target) throws IOException
+  {
+    boolean sawClass = false;
+    target.classID = target.confidence = target.zone = 0;
+    target.tx = target.tx_pixels = target.ty = target.ty_pixels = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field)
+      {
+        case "class" ->
+        {
+          target.className = readString(parser, target.className);
+          sawClass = true;
+        }
+        case "classID" -> target.classID = readDouble(parser);
+        case "conf" -> target.confidence = readDouble(parser);
+        case "zone" -> target.zone = readDouble(parser);
+        case "tx" -> target.tx = readDouble(parser);
+        case "txp" -> target.tx_pixels = readDouble(parser);
+        case "ty" -> target.ty = readDouble(parser);
+        case "typ" -> target.ty_pixels = readDouble(parser);
+        default -> parser.skipChildren();
+      }
+    }
+    if (!sawClass)
+    {
+      target.className = null;
+    }
+  }
+
+  /**
+   * Read a {@link NeuralDetector} target.
+   *
+   * @param parser Parser positioned on the target object.
+   * @param target Target to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  private void readDetector(JsonParser parser, NeuralDetector target) throws IOException
+  {
+    boolean sawClass = false;
+    target.classID = target.confidence = target.ta = 0;
+    target.tx = target.ty = target.tx_pixels = target.ty_pixels = 0;
+    target.tx_nocrosshair = target.ty_nocrosshair = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field)
+      {
+        case "class" ->
+        {
+          target.className = readString(parser, target.className);
+          sawClass = true;
+        }
+        case "classID" -> target.classID = readDouble(parser);
+        case "conf" -> target.confidence = readDouble(parser);
+        case "ta" -> target.ta = readDouble(parser);
+        case "tx" -> target.tx = readDouble(parser);
+        case "ty" -> target.ty = readDouble(parser);
+        case "txp" -> target.tx_pixels = readDouble(parser);
+        case "typ" -> target.ty_pixels = readDouble(parser);
+        case "tx_nocross" -> target.tx_nocrosshair = readDouble(parser);
+        case "ty_nocross" -> target.ty_nocrosshair = readDouble(parser);
+        default -> parser.skipChildren();
+      }
+    }
+    if (!sawClass)
+    {
+      target.className = null;
+    }
+  }
+
+  /**
+   * Read a {@link Barcode} target.
+   *
+   * @param parser Parser positioned on the target object.
+   * @param target Target to fill.
+   * @throws IOException if the JSON is malformed.
+   */
+  private void readBarcode(JsonParser parser, Barcode target) throws IOException
+  {
+    boolean sawFamily = false;
+    boolean sawData   = false;
+    boolean sawPoints = false;
+    target.tx_pixels = target.ty_pixels = 0;
+    target.tx = target.ty = 0;
+    target.tx_nocrosshair = target.ty_nocrosshair = 0;
+    target.ta = 0;
+    while (parser.nextToken() == JsonToken.FIELD_NAME)
+    {
+      String field = parser.currentName();
+      parser.nextToken();
+      switch (field)
+      {
+        case "fam" ->
+        {
+          target.family = readString(parser, target.family);
+          sawFamily = true;
+        }
+        case "data" ->
+        {
+          target.data = readString(parser, target.data);
+          sawData = true;
+        }
+        case "txp" -> target.tx_pixels = readDouble(parser);
+        case "typ" -> target.ty_pixels = readDouble(parser);
+        case "tx" -> target.tx = readDouble(parser);
+        case "ty" -> target.ty = readDouble(parser);
+        case "tx_nocross" -> target.tx_nocrosshair = readDouble(parser);
+        case "ty_nocross" -> target.ty_nocrosshair = readDouble(parser);
+        case "ta" -> target.ta = readDouble(parser);
+        case "pts" ->
+        {
+          target.corners = readCorners(parser, target.corners);
+          sawPoints = true;
+        }
+        default -> parser.skipChildren();
+      }
+    }
+    if (!sawFamily)
+    {
+      target.family = null;
+    }
+    if (!sawData)
+    {
+      target.data = null;
+    }
+    if (!sawPoints)
+    {
+      target.corners = null;
+    }
+  }
+
+  /**
+   * Read the {@link Barcode} corner points, reusing the previous points when the shape matches.
+   *
+   * @param parser  Parser positioned on the points array.
+   * @param current Previous corner points, may be null.
+   * @return Corner points.
+   * @throws IOException if the JSON is malformed.
+   */
+  private double[][] readCorners(JsonParser parser, double[][] current) throws IOException
+  {
+    if (parser.currentToken() != JsonToken.START_ARRAY)
+    {
+      parser.skipChildren();
+      return null;
+    }
+    double[][] corners = current == null ? new double[0][] : current;
+    int        count   = 0;
+    while (parser.nextToken() == JsonToken.START_ARRAY)
+    {
+      if (count == corners.length)
+      {
+        corners = Arrays.copyOf(corners, count + 1);
+      }
+      corners[count] = readDoubleArray(parser, corners[count] == null ? new double[0] : corners[count]);
+      count++;
+    }
+    return count == corners.length ? corners : Arrays.copyOf(corners, count);
+  }
+
+  /**
+   * Read a number, treating null and non-numeric values as 0.
+   *
+   * @param parser Parser positioned on the value.
+   * @return Number value.
+   * @throws IOException if the JSON is malformed.
+   */
+  private static double readDouble(JsonParser parser) throws IOException
+  {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT)
+    {
+      return parser.getDoubleValue();
+    }
+    parser.skipChildren();
+    return 0;
+  }
+
+  /**
+   * Read a boolean which the {@link Limelight} sends as a number.
+   *
+   * @param parser Parser positioned on the value.
+   * @return True if the value is non-zero or true.
+   * @throws IOException if the JSON is malformed.
+   */
+  private static boolean readBoolean(JsonParser parser) throws IOException
+  {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE)
+    {
+      return token == JsonToken.VALUE_TRUE;
+    }
+    return readDouble(parser) != 0;
+  }
+
+  /**
+   * Read a string, returning the current string when the text is unchanged so that no new string is created.
+   *
+   * @param parser  Parser positioned on the value.
+   * @param current Current value, may be null.
+   * @return String value, or null for JSON null.
+   * @throws IOException if the JSON is malformed.
+   */
+  private static String readString(JsonParser parser, String current) throws IOException
+  {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NULL)
+    {
+      return null;
+    }
+    if (token != JsonToken.VALUE_STRING)
+    {
+      parser.skipChildren();
+      return null;
+    }
+    char[] text   = parser.getTextCharacters();
+    int    offset = parser.getTextOffset();
+    int    length = parser.getTextLength();
+    if (current != null && current.length() == length)
+    {
+      boolean same = true;
+      for (int i = 0; i < length && same; i++)
+      {
+        same = current.charAt(i) == text[offset + i];
+      }
+      if (same)
+      {
+        return current;
+      }
+    }
+    return new String(text, offset, length);
+  }
+
+  /**
+   * Read a number array into the current array when the length matches, otherwise into a new array.
+   *
+   * @param parser  Parser positioned on the array.
+   * @param current Current array.
+   * @return Number array.
+   * @throws IOException if the JSON is malformed.
+   */
+  private double[] readDoubleArray(JsonParser parser, double[] current) throws IOException
+  {
+    int count = readNumbers(parser);
+    if (count < 0)
+    {
+      return current;
+    }
+    double[] result = current.length == count ? current : new double[count];
+    System.arraycopy(numbers, 0, result, 0, count);
+    return result;
+  }
+
+  /**
+   * Read a number array into the current array when the length matches, otherwise into the pooled array of that
+   * length, so a length that alternates between frames does not allocate once each length was seen.
+   *
+   * @param parser  Parser positioned on the array.
+   * @param current Current array.
+   * @param pool    Arrays of the field by length.
+   * @return Number array.
+   * @throws IOException if the JSON is malformed.
+   */
+  private double[] readDoubleArray(JsonParser parser, double[] current, ArrayPool pool) throws IOException
+  {
+    int count = readNumbers(parser);
+    if (count < 0)
+    {
+      return current;
+    }
+    double[] result = current.length == count ? current : pool.get(count);
+    System.arraycopy(numbers, 0, result, 0, count);
+    return result;
+  }
+
+  /**
+   * Read a JSON number array into the {@link #numbers} scratch buffer.
+   *
+   * @param parser Parser positioned on the array.
+   * @return Number of values read, or -1 if the value was not an array and was skipped.
+   * @throws IOException if the JSON is malformed.
+   */
+  private int readNumbers(JsonParser parser) throws IOException
+  {
+    if (parser.currentToken() != JsonToken.START_ARRAY)
+    {
+      parser.skipChildren();
+      return -1;
+    }
+    int count = 0;
+    while (parser.nextToken() != JsonToken.END_ARRAY)
+    {
+      if (count == numbers.length)
+      {
+        numbers = Arrays.copyOf(numbers, count * 2);
+      }
+      numbers[count++] = readDouble(parser);
+    }
+    return count;
+  }
+
+  /**
+   * Reads one target object in place.
+   *
+   * @param <T> Target type.
+   */
+  @FunctionalInterface
+  private interface TargetReader<T>
+  {
+
+    /**
+     * Read the target object the parser is positioned on.
+     *
+     * @param parser Parser positioned on the target object.
+     * @param target Target to fill.
+     * @throws IOException if the JSON is malformed.
+     */
+    void read(JsonParser parser, T target) throws IOException;
+  }
+
+  /**
+   * Growable pool of target objects owned by a {@link LimelightResults}.
+   *
+   * @param <T> Target type.
+   */
+  static final class TargetPool<T>
+  {
+
+    /**
+     * Creates new target objects.
+     */
+    private final Supplier<T>      factory;
+    /**
+     * Creates target arrays.
+     */
+    private final IntFunction<T[]> arrayFactory;
+    /**
+     * Pooled target objects.
+     */
+    private       T[]              items;
+    /**
+     * Target array of each target count seen, a T[] holding the first pooled targets; null for counts not seen yet.
+     */
+    private       Object[]         arrays = new Object[8];
+
+    /**
+     * Create an empty {@link TargetPool}.
+     *
+     * @param factory      Creates new target objects.
+     * @param arrayFactory Creates target arrays.
+     */
+    TargetPool(Supplier<T> factory, IntFunction<T[]> arrayFactory)
+    {
+      this.factory = factory;
+      this.arrayFactory = arrayFactory;
+      this.items = arrayFactory.apply(0);
+    }
+
+    /**
+     * Get the pooled target at the index, growing the pool if needed.
+     *
+     * @param index Target index.
+     * @return Pooled target.
+     */
+    T get(int index)
+    {
+      if (index == items.length)
+      {
+        items = Arrays.copyOf(items, Math.max(4, items.length * 2));
+      }
+      if (items[index] == null)
+      {
+        items[index] = factory.get();
+      }
+      return items[index];
+    }
+
+    /**
+     * Get an array with the first pooled targets. The array of each count is created once and reused afterwards, so
+     * a target count that alternates between frames does not allocate.
+     *
+     * @param count   Number of targets.
+     * @param current Target array from the previous frame.
+     * @return Target array.
+     */
+    @SuppressWarnings("unchecked")
+    T[] toArray(int count, T[] current)
+    {
+      if (current.length == count)
+      {
+        boolean same = true;
+        for (int i = 0; i < count && same; i++)
+        {
+          same = current[i] == items[i];
+        }
+        if (same)
+        {
+          return current;
+        }
+      }
+      if (count >= arrays.length)
+      {
+        arrays = Arrays.copyOf(arrays, Math.max(count + 1, arrays.length * 2));
+      }
+      if (arrays[count] == null)
+      {
+        T[] targets = arrayFactory.apply(count);
+        System.arraycopy(items, 0, targets, 0, count);
+        arrays[count] = targets;
+      }
+      return (T[]) arrays[count];
+    }
+  }
+
+  /**
+   * Number arrays of one {@link LimelightResults} field by length, so the field can change length between frames
+   * without allocating once each length was seen.
+   */
+  static final class ArrayPool
+  {
+
+    /**
+     * Array of each length seen; null for lengths not seen yet.
+     */
+    private double[][] arrays = new double[16][];
+
+    /**
+     * Get the array of a length, creating it the first time.
+     *
+     * @param length Array length.
+     * @return Array of that length; its contents are overwritten by the caller.
+     */
+    double[] get(int length)
+    {
+      if (length >= arrays.length)
+      {
+        arrays = Arrays.copyOf(arrays, Math.max(length + 1, arrays.length * 2));
+      }
+      if (arrays[length] == null)
+      {
+        arrays[length] = new double[length];
+      }
+      return arrays[length];
+    }
+  }
+}
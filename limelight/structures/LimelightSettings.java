@@ -9,7 +9,7 @@ import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.networktables.DoubleArrayEntry;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
-import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.Arrays;
 import java.util.List;
 import limelight.Limelight;
 
@@ -26,6 +26,12 @@ import limelight.Limelight;
  * 
  * Initially, at constructor time, settings are fetched from the LL, however, there
  * is no provision to programatically access those values - they are dead, useless.
+ * <p>
+ * Writes are dirty-checked: a ".withXXXX" value equal to the one last published is not sent again. In
+ * {@link #withTransactional(boolean) transactional} mode the ".withXXXX" methods only stage their values, and
+ * {@link #save} publishes the settings that changed in one batch, so calling ".withXXXX" every loop costs no
+ * NetworkTables traffic while nothing changes. The robot orientation is the exception: it changes every loop and is
+ * always published right away through the {@link Limelight#getRobotOrientationPublisher() RobotOrientationPublisher}.
  */
 public class LimelightSettings
 {
@@ -68,13 +74,6 @@ public class LimelightSettings
    * DoubleArray [offsetX(meters), offsetY(meters), offsetZ(meters)]
    */
   private DoubleArrayEntry  fiducial3DOffset;
-  /**
-   * Robot orientation for MegaTag2 localization algorithm.
-   * <p>
-   * DoubleArray [yaw(degrees), *yawRaw(degreesPerSecond),
-   * *pitch(degrees), *pitchRate(degreesPerSecond), *roll(degrees), *rollRate(degreesPerSecond)]
-   */
-  private DoubleArrayEntry  robotOrientationSet;
   /**
    * DoubleArray of valid apriltag id's to track.
    */
@@ -89,6 +88,62 @@ public class LimelightSettings
    * pitch(degrees), yaw(degrees)]
    */
   private DoubleArrayEntry  cameraToRobot;
+  /**
+   * Every {@link Setting}, in publishing order.
+   */
+  private final Setting[]         settings;
+  /**
+   * {@link Setting} of the LED mode.
+   */
+  private final Setting           ledModeSetting;
+  /**
+   * {@link Setting} of the pipeline index.
+   */
+  private final Setting           pipelineIndexSetting;
+  /**
+   * {@link Setting} of the priority tag ID.
+   */
+  private final Setting           priorityTagIDSetting;
+  /**
+   * {@link Setting} of the stream mode.
+   */
+  private final Setting           streamModeSetting;
+  /**
+   * {@link Setting} of the crop window.
+   */
+  private final Setting           cropWindowSetting;
+  /**
+   * {@link Setting} of the AprilTag offset.
+   */
+  private final Setting           fiducial3DOffsetSetting;
+  /**
+   * {@link Setting} of the AprilTag ID filter.
+   */
+  private final Setting           fiducialIDFiltersSetting;
+  /**
+   * {@link Setting} of the downscaling override.
+   */
+  private final Setting           downscaleSetting;
+  /**
+   * {@link Setting} of the camera offset.
+   */
+  private final Setting           cameraToRobotSetting;
+  /**
+   * Stage ".withXXXX" values until {@link #save()} instead of publishing them immediately.
+   */
+  private       boolean           transactional   = false;
+  /**
+   * Values were published since the last {@link #save()}.
+   */
+  private       boolean           unflushed       = false;
+  /**
+   * Number of ".withXXXX" values requested.
+   */
+  private       long              requestedWrites = 0;
+  /**
+   * Number of values published to NetworkTables.
+   */
+  private       long              sentWrites      = 0;
 
   /**
    * Create a {@link LimelightSettings} object with all configurable features of a {@link Limelight}.
@@ -105,11 +160,92 @@ public class LimelightSettings
     priorityTagID = limelightTable.getEntry("priorityid");
     streamMode = limelightTable.getEntry("stream");
     cropWindow = limelightTable.getDoubleArrayTopic("crop").getEntry(new double[0]);
-    robotOrientationSet = limelightTable.getDoubleArrayTopic("robot_orientation_set").getEntry(new double[0]);
     downscale = limelightTable.getEntry("fiducial_downscale_set");
     fiducial3DOffset = limelightTable.getDoubleArrayTopic("fiducial_offset_set").getEntry(new double[0]);
     cameraToRobot = limelightTable.getDoubleArrayTopic("camerapose_robotspace_set").getEntry(new double[0]);
     fiducialIDFiltersOverride = limelightTable.getDoubleArrayTopic("fiducial_id_filters_set").getEntry(new double[0]);
+
+    ledModeSetting = new Setting(ledMode);
+    pipelineIndexSetting = new Setting(pipelineIndex);
+    priorityTagIDSetting = new Setting(priorityTagID);
+    streamModeSetting = new Setting(streamMode);
+    cropWindowSetting = new Setting(cropWindow);
+    downscaleSetting = new Setting(downscale);
+    fiducial3DOffsetSetting = new Setting(fiducial3DOffset);
+    cameraToRobotSetting = new Setting(cameraToRobot);
+    fiducialIDFiltersSetting = new Setting(fiducialIDFiltersOverride);
+    settings = new Setting[]{ledModeSetting, pipelineIndexSetting, priorityTagIDSetting, streamModeSetting,
+                             cropWindowSetting, downscaleSetting, fiducial3DOffsetSetting, cameraToRobotSetting,
+                             fiducialIDFiltersSetting};
+  }
+
+  /**
+   * Stage ".withXXXX" values until {@link #save()} instead of publishing them immediately. Leaving transactional mode
+   * publishes the staged values.
+   *
+   * @param transactional Stage values until {@link #save()}.
+   * @return {@link LimelightSettings} for chaining.
+   */
+  public LimelightSettings withTransactional(boolean transactional)
+  {
+    this.transactional = transactional;
+    if (!transactional)
+    {
+      publishChanges();
+    }
+    return this;
+  }
+
+  /**
+   * Number of ".withXXXX" values that were not sent because they were unchanged or replaced before {@link #save()}.
+   *
+   * @return Suppressed write count.
+   */
+  public long getSuppressedWrites()
+  {
+    return requestedWrites - sentWrites;
+  }
+
+  /**
+   * Number of values published to NetworkTables.
+   *
+   * @return Sent write count.
+   */
+  public long getSentWrites()
+  {
+    return sentWrites;
+  }
+
+  /**
+   * Count a staged value and publish it unless in transactional mode.
+   *
+   * @param setting {@link Setting} that was staged.
+   * @return {@link LimelightSettings} for chaining.
+   */
+  private LimelightSettings write(Setting setting)
+  {
+    requestedWrites++;
+    if (!transactional && setting.publishIfChanged())
+    {
+      sentWrites++;
+      unflushed = true;
+    }
+    return this;
+  }
+
+  /**
+   * Publish every staged value that differs from the last published one.
+   */
+  private void publishChanges()
+  {
+    for (Setting setting : settings)
+    {
+      if (setting.publishIfChanged())
+      {
+        sentWrites++;
+        unflushed = true;
+      }
+    }
   }
 
   /**
@@ -121,8 +257,7 @@ public class LimelightSettings
    */
   public LimelightSettings withLimelightLEDMode(LEDMode mode)
   {
-    ledMode.setNumber(mode.ordinal());
-    return this;
+    return write(ledModeSetting.stage(mode.ordinal()));
   }
 
   /**
@@ -134,8 +269,7 @@ public class LimelightSettings
    */
   public LimelightSettings withPipelineIndex(int index)
   {
-    pipelineIndex.setNumber(index);
-    return this;
+    return write(pipelineIndexSetting.stage(index));
   }
 
   /**
@@ -147,8 +281,7 @@ public class LimelightSettings
    */
   public LimelightSettings withPriorityTagId(int aprilTagId)
   {
-    priorityTagID.setNumber(aprilTagId);
-    return this;
+    return write(priorityTagIDSetting.stage(aprilTagId));
   }
 
   /**
@@ -160,8 +293,7 @@ public class LimelightSettings
    */
   public LimelightSettings withStreamMode(StreamMode mode)
   {
-    streamMode.setNumber(mode.ordinal());
-    return this;
+    return write(streamModeSetting.stage(mode.ordinal()));
   }
 
   /**
@@ -175,20 +307,22 @@ public class LimelightSettings
    */
   public LimelightSettings withCropWindow(double minX, double maxX, double minY, double maxY)
   {
-    cropWindow.set(new double[]{minX, maxX, minY, maxY});
-    return this;
+    return write(cropWindowSetting.stage(minX, maxX, minY, maxY));
   }
 
   /**
    * Set the current robot {@link Orientation3d} (normally given by the robot gyro) for LL to use in its MegaTag2 determination.
-   * <p> This method changes the Limelight - normally immediately.
+   * <p> This method changes the Limelight immediately, even in {@link #withTransactional(boolean) transactional}
+   * mode, through the {@link Limelight#getRobotOrientationPublisher() RobotOrientationPublisher}, which owns the
+   * "robot_orientation_set" topic. The value is not dirty-checked.
    *
    * @param orientation {@link Orientation3d} object to set the current orientation to.
    * @return {@link LimelightSettings} for chaining.
    */
   public LimelightSettings withRobotOrientation(Orientation3d orientation)
   {
-    robotOrientationSet.set(orientation3dToArray(orientation));
+    double[] values = orientation3dToArray(orientation);
+    limelight.getRobotOrientationPublisher().set(values[0], values[1], values[2], values[3], values[4], values[5]);
     return this;
   }
 
@@ -202,8 +336,7 @@ public class LimelightSettings
    */
   public LimelightSettings withFiducialDownscalingOverride(DownscalingOverride downscalingOverride)
   {
-    downscale.setDouble(downscalingOverride.ordinal());
-    return this;
+    return write(downscaleSetting.stage(downscalingOverride.ordinal()));
   }
 
   /**
@@ -217,8 +350,7 @@ public class LimelightSettings
    */
   public LimelightSettings withAprilTagOffset(Translation3d offset)
   {
-    fiducial3DOffset.set(translation3dToArray(offset));
-    return this;
+    return write(fiducial3DOffsetSetting.stage(translation3dToArray(offset)));
   }
 
   /**
@@ -230,8 +362,7 @@ public class LimelightSettings
    */
   public LimelightSettings withArilTagIdFilter(List<Double> idFilter)
   {
-    fiducialIDFiltersOverride.set(idFilter.stream().mapToDouble(Double::doubleValue).toArray());
-    return this;
+    return write(fiducialIDFiltersSetting.stage(idFilter.stream().mapToDouble(Double::doubleValue).toArray()));
   }
 
   /**
@@ -244,19 +375,137 @@ public class LimelightSettings
    */
   public LimelightSettings withCameraOffset(Pose3d offset)
   {
-    cameraToRobot.set(pose3dToArray(offset));
-    return this;
+    return write(cameraToRobotSetting.stage(pose3dToArray(offset)));
   }
 
   /**
    * Push any pending changes to the {@link NetworkTable} instance immediately.
    * <p> This method changes the Limelight immediately.
    * <p> Most setting changes are done essentially immediately and this method
-   * isn't needed but does no harm to assure changes.
+   * isn't needed but does no harm to assure changes. In {@link #withTransactional(boolean) transactional} mode this
+   * publishes the staged settings that changed. NetworkTables is only flushed if something was published.
    */
   public void save()
   {
-    NetworkTableInstance.getDefault().flush();
+    publishChanges();
+    if (unflushed)
+    {
+      unflushed = false;
+      limelightTable.getInstance().flush();
+    }
+  }
+
+  /**
+   * Staged and last published value of one settings entry, kept as a double array so scalar and array entries are
+   * dirty-checked the same way.
+   */
+  private static final class Setting
+  {
+
+    /**
+     * Scalar entry, null for array settings.
+     */
+    private final NetworkTableEntry entry;
+    /**
+     * Array entry, null for scalar settings.
+     */
+    private final DoubleArrayEntry  arrayEntry;
+    /**
+     * Staged value.
+     */
+    private       double[]          staged    = new double[0];
+    /**
+     * Last published value, null until the first publish.
+     */
+    private       double[]          published = null;
+    /**
+     * A value was staged since the last publish.
+     */
+    private       boolean           pending   = false;
+
+    /**
+     * Create a scalar {@link Setting}.
+     *
+     * @param entry Scalar entry.
+     */
+    Setting(NetworkTableEntry entry)
+    {
+      this.entry = entry;
+      this.arrayEntry = null;
+      staged = new double[1];
+    }
+
+    /**
+     * Create an array {@link Setting}.
+     *
+     * @param arrayEntry Array entry.
+     */
+    Setting(DoubleArrayEntry arrayEntry)
+    {
+      this.entry = null;
+      this.arrayEntry = arrayEntry;
+    }
+
+    /**
+     * Stage a scalar value.
+     *
+     * @param value Value to stage.
+     * @return This {@link Setting}.
+     */
+    Setting stage(double value)
+    {
+      staged[0] = value;
+      pending = true;
+      return this;
+    }
+
+    /**
+     * Stage an array value. The values are copied.
+     *
+     * @param values Values to stage.
+     * @return This {@link Setting}.
+     */
+    Setting stage(double... values)
+    {
+      if (staged.length != values.length)
+      {
+        staged = new double[values.length];
+      }
+      System.arraycopy(values, 0, staged, 0, values.length);
+      pending = true;
+      return this;
+    }
+
+    /**
+     * Publish the staged value if it differs from the last published one.
+     *
+     * @return True if the value was published.
+     */
+    boolean publishIfChanged()
+    {
+      if (!pending)
+      {
+        return false;
+      }
+      pending = false;
+      if (Arrays.equals(staged, published))
+      {
+        return false;
+      }
+      if (entry != null)
+      {
+        entry.setDouble(staged[0]);
+      } else
+      {
+        arrayEntry.set(staged);
+      }
+      if (published == null || published.length != staged.length)
+      {
+        published = new double[staged.length];
+      }
+      System.arraycopy(staged, 0, published, 0, staged.length);
+      return true;
+    }
   }
 
 
@@ -7,7 +7,11 @@ import edu.wpi.first.math.geometry.Pose3d;
 import edu.wpi.first.networktables.DoubleArrayEntry;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+import java.util.Optional;
 import limelight.Limelight;
+import limelight.results.TargetMetrics;
+import limelight.results.TargetSnapshot;
 
 public class LimelightTargetData
 {
@@ -79,6 +83,18 @@ public class LimelightTargetData
    * Current Neural class ID.
    */
   private NetworkTableEntry neuralClassID;
+  /**
+   * {@link TargetSnapshot} refilled in place from each new "t2d" array.
+   */
+  private final TargetSnapshot           snapshot          = new TargetSnapshot();
+  /**
+   * NT timestamp of the "t2d" array in {@link #snapshot} in microseconds, -1 if none.
+   */
+  private       long                     snapshotTimestamp = -1;
+  /**
+   * Result of the last snapshot decode, returned again while the "t2d" array is unchanged.
+   */
+  private       Optional<TargetSnapshot> lastSnapshot      = Optional.empty();
 
   /**
    * Construct data for targets.
@@ -177,13 +193,14 @@ public class LimelightTargetData
   }
 
   /**
-   * Does the {@link Limelight} have a valid target?
+   * Does the {@link Limelight} have a valid target? Always false while the {@link Limelight} is not
+   * {@link Limelight#isFresh() fresh}, so a frozen camera does not keep reporting its last target.
    *
    * @return True if a valid target is present, false otherwise
    */
   public boolean getTargetStatus()
   {
-    return targetValid.getDouble(0) == 1.0;
+    return limelight.isFresh() && targetValid.getDouble(0) == 1.0;
   }
 
   /**
@@ -239,18 +256,57 @@ public class LimelightTargetData
   }
 
   /**
-   * T2D is an array that contains several targeting metrcis
+   * T2D is an array that contains several targeting metrcis; see {@link #getTargetSnapshot()} for typed values.
    *
    * @return Array containing  [targetValid, targetCount, targetLatency, captureLatency, tx, ty, txnc, tync, ta, tid,
    * targetClassIndexDetector, targetClassIndexClassifier, targetLongSidePixels, targetShortSidePixels,
-   * targetHorizontalExtentPixels, targetVerticalExtentPixels, targetSkewDegrees]
+   * targetHorizontalExtentPixels, targetVerticalExtentPixels, targetSkewDegrees], empty while the {@link Limelight}
+   * is not {@link Limelight#isFresh() fresh}.
    */
   public double[] getTargetMetrics()
   {
-    // TODO: Create TargetMetrics class for this data.
+    if (!limelight.isFresh())
+    {
+      return new double[0];
+    }
     return targetMetrics.get();
   }
 
+  /**
+   * Get the 2D targeting data of the latest frame, decoded from one read of the "t2d" array so tv, tx, ty, ta, tid and
+   * the other metrics all come from the same camera frame. Aiming code should read this once per loop instead of the
+   * single-value getters, which read separate entries that may be updated between calls.
+   * <p>
+   * The array is only copied when NetworkTables has a new value; the same {@link TargetSnapshot} is refilled in place,
+   * so it should be treated as read-only.
+   *
+   * @return {@link TargetSnapshot} of the latest frame, empty if there is no "t2d" array or the {@link Limelight} is
+   *     not {@link Limelight#isFresh() fresh}.
+   */
+  public Optional<TargetSnapshot> getTargetSnapshot()
+  {
+    if (!limelight.isFresh())
+    {
+      snapshotTimestamp = -1;
+      return Optional.empty();
+    }
+    long lastChange = targetMetrics.getLastChange();
+    if (lastChange == snapshotTimestamp)
+    {
+      return lastSnapshot;
+    }
+    TimestampedDoubleArray t2d = targetMetrics.getAtomic();
+    snapshotTimestamp = t2d.timestamp;
+    if (t2d.value.length != TargetMetrics.T2D_LENGTH)
+    {
+      lastSnapshot = Optional.empty();
+      return lastSnapshot;
+    }
+    double capture = limelight.getClockSync().captureTimestamp(t2d.timestamp, t2d.value[2] + t2d.value[3]);
+    lastSnapshot = snapshot.set(t2d.value, t2d.timestamp, capture) ? Optional.of(snapshot) : Optional.empty();
+    return lastSnapshot;
+  }
+
   /**
    * Gets the number of targets currently detected.
    *
@@ -258,10 +314,10 @@ public class LimelightTargetData
    */
   public int getTargetCount()
   {
-    double[] t2d = getTargetMetrics();
-    if (t2d.length == 17)
+    Optional<TargetSnapshot> t2d = getTargetSnapshot();
+    if (t2d.isPresent())
     {
-      return (int) t2d[1];
+      return t2d.get().metrics.targetCount;
     }
     return 0;
   }
@@ -273,10 +329,11 @@ public class LimelightTargetData
    */
   public int getClassifierClassIndex()
   {
-    double[] t2d = getTargetMetrics();
-    if (t2d.length == 17)
+    Optional<TargetSnapshot> t2d = getTargetSnapshot();
+    if (t2d.isPresent())
     {
-      return (int) t2d[10];
+      // t2d[10], the slot this getter has always returned.
+      return t2d.get().metrics.targetClassIndexDetector;
     }
     return 0;
   }
@@ -288,10 +345,11 @@ public class LimelightTargetData
    */
   public int getDetectorClassIndex()
   {
-    double[] t2d = getTargetMetrics();
-    if (t2d.length == 17)
+    Optional<TargetSnapshot> t2d = getTargetSnapshot();
+    if (t2d.isPresent())
     {
-      return (int) t2d[11];
+      // t2d[11], the slot this getter has always returned.
+      return t2d.get().metrics.targetClassIndexClassifier;
     }
     return 0;
   }
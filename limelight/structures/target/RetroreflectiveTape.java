@@ -30,15 +30,15 @@ public class RetroreflectiveTape
   @JsonProperty("ts")
   public  double   ts;
   @JsonProperty("t6c_ts")
-  private double[] cameraPose_TargetSpace;
+          double[] cameraPose_TargetSpace;
   @JsonProperty("t6r_fs")
-  private double[] robotPose_FieldSpace;
+          double[] robotPose_FieldSpace;
   @JsonProperty("t6r_ts")
-  private double[] robotPose_TargetSpace;
+          double[] robotPose_TargetSpace;
   @JsonProperty("t6t_cs")
-  private double[] targetPose_CameraSpace;
+          double[] targetPose_CameraSpace;
   @JsonProperty("t6t_rs")
-  private double[] targetPose_RobotSpace;
+          double[] targetPose_RobotSpace;
 
   public RetroreflectiveTape()
   {
@@ -0,0 +1,126 @@
+package limelight.structures.target;
+
+import java.util.Arrays;
+
+/**
+ * In-place access to the 3D poses of {@link AprilTagFiducial} and {@link RetroreflectiveTape} targets for
+ * {@link limelight.structures.LimelightResultsDecoder}, which reuses targets from one frame to the next. The pose
+ * arrays stay package-private in the target classes; robot code reads them through the pose getters.
+ */
+public final class TargetPoses
+{
+
+  /**
+   * "t6c_ts", camera pose in target space.
+   */
+  public static final int CAMERA_POSE_TARGET_SPACE = 0;
+  /**
+   * "t6r_fs", robot pose in field space.
+   */
+  public static final int ROBOT_POSE_FIELD_SPACE   = 1;
+  /**
+   * "t6r_ts", robot pose in target space.
+   */
+  public static final int ROBOT_POSE_TARGET_SPACE  = 2;
+  /**
+   * "t6t_cs", target pose in camera space.
+   */
+  public static final int TARGET_POSE_CAMERA_SPACE = 3;
+  /**
+   * "t6t_rs", target pose in robot space.
+   */
+  public static final int TARGET_POSE_ROBOT_SPACE  = 4;
+
+  /**
+   * Static access only.
+   */
+  private TargetPoses()
+  {
+  }
+
+  /**
+   * Zero every pose of an {@link AprilTagFiducial} in place.
+   *
+   * @param fiducial Target to clear.
+   */
+  public static void clear(AprilTagFiducial fiducial)
+  {
+    Arrays.fill(fiducial.cameraPose_TargetSpace, 0);
+    Arrays.fill(fiducial.robotPose_FieldSpace, 0);
+    Arrays.fill(fiducial.robotPose_TargetSpace, 0);
+    Arrays.fill(fiducial.targetPose_CameraSpace, 0);
+    Arrays.fill(fiducial.targetPose_RobotSpace, 0);
+  }
+
+  /**
+   * Zero every pose of a {@link RetroreflectiveTape} in place.
+   *
+   * @param tape Target to clear.
+   */
+  public static void clear(RetroreflectiveTape tape)
+  {
+    Arrays.fill(tape.cameraPose_TargetSpace, 0);
+    Arrays.fill(tape.robotPose_FieldSpace, 0);
+    Arrays.fill(tape.robotPose_TargetSpace, 0);
+    Arrays.fill(tape.targetPose_CameraSpace, 0);
+    Arrays.fill(tape.targetPose_RobotSpace, 0);
+  }
+
+  /**
+   * Copy one pose into an {@link AprilTagFiducial}, reusing its array when the length is unchanged.
+   *
+   * @param fiducial Target to fill.
+   * @param pose     Pose to set, e.g. {@link #ROBOT_POSE_FIELD_SPACE}.
+   * @param values   Pose values.
+   * @param count    Number of values.
+   */
+  public static void set(AprilTagFiducial fiducial, int pose, double[] values, int count)
+  {
+    switch (pose)
+    {
+      case CAMERA_POSE_TARGET_SPACE ->
+          fiducial.cameraPose_TargetSpace = copy(fiducial.cameraPose_TargetSpace, values, count);
+      case ROBOT_POSE_FIELD_SPACE -> fiducial.robotPose_FieldSpace = copy(fiducial.robotPose_FieldSpace, values, count);
+      case ROBOT_POSE_TARGET_SPACE ->
+          fiducial.robotPose_TargetSpace = copy(fiducial.robotPose_TargetSpace, values, count);
+      case TARGET_POSE_CAMERA_SPACE ->
+          fiducial.targetPose_CameraSpace = copy(fiducial.targetPose_CameraSpace, values, count);
+      default -> fiducial.targetPose_RobotSpace = copy(fiducial.targetPose_RobotSpace, values, count);
+    }
+  }
+
+  /**
+   * Copy one pose into a {@link RetroreflectiveTape}, reusing its array when the length is unchanged.
+   *
+   * @param tape   Target to fill.
+   * @param pose   Pose to set, e.g. {@link #ROBOT_POSE_FIELD_SPACE}.
+   * @param values Pose values.
+   * @param count  Number of values.
+   */
+  public static void set(RetroreflectiveTape tape, int pose, double[] values, int count)
+  {
+    switch (pose)
+    {
+      case CAMERA_POSE_TARGET_SPACE -> tape.cameraPose_TargetSpace = copy(tape.cameraPose_TargetSpace, values, count);
+      case ROBOT_POSE_FIELD_SPACE -> tape.robotPose_FieldSpace = copy(tape.robotPose_FieldSpace, values, count);
+      case ROBOT_POSE_TARGET_SPACE -> tape.robotPose_TargetSpace = copy(tape.robotPose_TargetSpace, values, count);
+      case TARGET_POSE_CAMERA_SPACE -> tape.targetPose_CameraSpace = copy(tape.targetPose_CameraSpace, values, count);
+      default -> tape.targetPose_RobotSpace = copy(tape.targetPose_RobotSpace, values, count);
+    }
+  }
+
+  /**
+   * Copy pose values into an array, reallocating it only when the length changes.
+   *
+   * @param pose   Current pose array.
+   * @param values Pose values.
+   * @param count  Number of values.
+   * @return The pose array holding the values.
+   */
+  private static double[] copy(double[] pose, double[] values, int count)
+  {
+    double[] result = pose.length == count ? pose : new double[count];
+    System.arraycopy(values, 0, result, 0, count);
+    return result;
+  }
+}